@@ -0,0 +1,127 @@
+package com.kabirkanha.sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures batch mode, including formatting.
+ * <br>solve is one parsed puzzle per operation on one thread; parallel is the whole set per operation, parsing included,
+ * spread over the worker threads of a ParallelBatchSolver.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+    /**
+     * The puzzle set.
+     */
+    @Param({Corpus.EASY, Corpus.HARD, Corpus.SEVENTEEN_CLUE})
+    public String corpus;
+
+    /**
+     * Whether puzzles are graded instead of solved.
+     */
+    @Param({"false", "true"})
+    public boolean grading;
+
+    /**
+     * The puzzles.
+     */
+    private Corpus puzzles;
+
+    /**
+     * The whole set as batch input.
+     */
+    private String text;
+
+    /**
+     * The single-threaded solver.
+     */
+    private BatchSolver solver;
+
+    /**
+     * The output buffer of solve.
+     */
+    private final StringBuilder out = new StringBuilder();
+
+    /**
+     * The index of the next puzzle.
+     */
+    private int next = 0;
+
+    /**
+     * Loads the puzzles and creates the solver.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        puzzles = new Corpus(corpus);
+        text = puzzles.text();
+        solver = new BatchSolver(EngineType.PROPAGATION, grading);
+    }
+
+    /**
+     * The thread count of the parallel benchmark, kept apart so that solve does not run once per count.
+     */
+    @State(Scope.Benchmark)
+    public static class Threads {
+        /**
+         * The number of worker threads; 0 for one per core.
+         */
+        @Param({"1", "0"})
+        public int threads;
+
+        /**
+         * @return the number of worker threads to start.
+         */
+        int count() {
+            return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    /**
+     * Solves the next puzzle.
+     *
+     * @return the output line, so that the work is not optimised away.
+     */
+    @Benchmark
+    public StringBuilder solve() {
+        out.setLength(0);
+        int[] puzzle = puzzles.puzzle(next);
+        solver.solve(PropagationEngine.sizeForCells(puzzle.length), puzzle, out);
+        next = next + 1 == puzzles.size() ? 0 : next + 1;
+        return out;
+    }
+
+    /**
+     * Solves the whole set in parallel.
+     *
+     * @param threads the thread count.
+     * @return the summary of the run, so that the work is not optimised away.
+     * @throws IOException never; the input and output are in memory.
+     */
+    @Benchmark
+    public String parallel(Threads threads) throws IOException {
+        ParallelBatchSolver parallel = new ParallelBatchSolver(EngineType.PROPAGATION, threads.count(), true, grading);
+        parallel.run(new PuzzleReader(ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII))), Writer.nullWriter());
+        return parallel.summary();
+    }
+}
@@ -0,0 +1,85 @@
+package com.kabirkanha.sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the canonical form of the puzzles of a set, or of their solutions, which take a different path as complete
+ * grids.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CanonicalizerBenchmark {
+    /**
+     * The puzzle set.
+     */
+    @Param({Corpus.EASY, Corpus.HARD, Corpus.SEVENTEEN_CLUE})
+    public String corpus;
+
+    /**
+     * Whether to canonicalise the puzzles or their solutions.
+     */
+    @Param({"puzzle", "solution"})
+    public String grid;
+
+    /**
+     * The grids.
+     */
+    private int[][] grids;
+
+    /**
+     * The canonicalizer.
+     */
+    private final Canonicalizer canonicalizer = new Canonicalizer();
+
+    /**
+     * Receives the canonical forms.
+     */
+    private final int[] canonical = new int[Canonicalizer.SIZE * Canonicalizer.SIZE];
+
+    /**
+     * The index of the next grid.
+     */
+    private int next = 0;
+
+    /**
+     * Loads the puzzles, solving them if the solutions are measured.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Corpus puzzles = new Corpus(corpus);
+        Engine engine = new PropagationEngine();
+        grids = new int[puzzles.size()][];
+        for (int i = 0; i < grids.length; ++i) {
+            grids[i] = grid.equals("solution") ? engine.solve(puzzles.puzzle(i)).getSolution() : puzzles.puzzle(i);
+        }
+    }
+
+    /**
+     * Canonicalises the next grid.
+     *
+     * @return a fingerprint of the canonical form, so that the work is not optimised away.
+     */
+    @Benchmark
+    public long canonicalize() {
+        canonicalizer.canonicalize(grids[next], canonical);
+        next = next + 1 == grids.length ? 0 : next + 1;
+        return Canonicalizer.fingerprint(canonical);
+    }
+}
@@ -0,0 +1,78 @@
+package com.kabirkanha.sudoku;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The puzzle sets the benchmarks run on, bundled as resources next to this class.
+ * <ul>
+ * <li>easy - generated puzzles that singles alone solve.</li>
+ * <li>hard - well-known hard puzzles and generated ones that need guessing.</li>
+ * <li>17clue - puzzles with the fewest givens a unique 9x9 puzzle can have.</li></ul>
+ */
+final class Corpus {
+    /**
+     * The names of the bundled puzzle sets.
+     */
+    static final String EASY = "easy", HARD = "hard", SEVENTEEN_CLUE = "17clue";
+
+    /**
+     * The parsed puzzles.
+     */
+    private final int[][] puzzles;
+
+    /**
+     * Loads a bundled puzzle set.
+     *
+     * @param name the name of the set, e.g. "hard".
+     */
+    Corpus(String name) {
+        List<int[]> grids = new ArrayList<>();
+        try (InputStream stream = Corpus.class.getResourceAsStream(name + ".txt")) {
+            if (stream == null)
+                throw new IllegalArgumentException("No puzzle set named " + name);
+            //Parsed the way batch mode reads its files.
+            PuzzleReader in = new PuzzleReader(ByteBuffer.wrap(stream.readAllBytes()));
+            int size;
+            while ((size = in.next()) != PuzzleReader.END) {
+                if (size == PuzzleReader.MALFORMED)
+                    throw new IllegalStateException("Malformed puzzle in set " + name);
+                grids.add(in.cells().clone());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        puzzles = grids.toArray(new int[0][]);
+    }
+
+    /**
+     * @return the number of puzzles in the set.
+     */
+    int size() {
+        return puzzles.length;
+    }
+
+    /**
+     * @param i the index of the puzzle.
+     * @return the givens of the puzzle; must not be modified.
+     */
+    int[] puzzle(int i) {
+        return puzzles[i];
+    }
+
+    /**
+     * @return the whole set in the one-line format, one puzzle per line.
+     */
+    String text() {
+        StringBuilder text = new StringBuilder();
+        for (int[] puzzle : puzzles) {
+            PuzzleFormat.appendLine(puzzle, text);
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.kabirkanha.sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures propagation alone: the engine may not guess, so every operation is the load of the givens plus the singles
+ * and deduction stages that follow, ending either SOLVED or ABORTED at the first guess.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PropagationBenchmark {
+    /**
+     * The puzzle set.
+     */
+    @Param({Corpus.EASY, Corpus.HARD, Corpus.SEVENTEEN_CLUE})
+    public String corpus;
+
+    /**
+     * The deduction stages after singles: none, those a search uses by default, or all of them.
+     */
+    @Param({"none", "search", "standard"})
+    public String stages;
+
+    /**
+     * The puzzles.
+     */
+    private Corpus puzzles;
+
+    /**
+     * The engine.
+     */
+    private PropagationEngine engine;
+
+    /**
+     * The index of the next puzzle.
+     */
+    private int next = 0;
+
+    /**
+     * Loads the puzzles and sets up the engine.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        puzzles = new Corpus(corpus);
+        engine = new PropagationEngine();
+        engine.setMaxDepth(0);
+        switch (stages) {
+            case "none":
+                engine.setStages();
+                break;
+            case "search":
+                engine.setStages(DeductionStage.forSearch());
+                break;
+            case "standard":
+                engine.setStages(DeductionStage.standard());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown stages " + stages);
+        }
+    }
+
+    /**
+     * Propagates the next puzzle.
+     *
+     * @return the result, so that the work is not optimised away.
+     */
+    @Benchmark
+    public SolveResult propagate() {
+        int[] givens = puzzles.puzzle(next);
+        next = next + 1 == puzzles.size() ? 0 : next + 1;
+        return engine.solve(givens);
+    }
+}
@@ -0,0 +1,88 @@
+package com.kabirkanha.sudoku;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single solves: one operation is one puzzle, taken in turn from the chosen set.
+ * <br>The engine is reused between solves, as in batch mode.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class SolveBenchmark {
+    /**
+     * The puzzle set.
+     */
+    @Param({Corpus.EASY, Corpus.HARD, Corpus.SEVENTEEN_CLUE})
+    public String corpus;
+
+    /**
+     * The engine to solve with.
+     */
+    @Param({"PROPAGATION", "DLX"})
+    public EngineType engineType;
+
+    /**
+     * The puzzles.
+     */
+    private Corpus puzzles;
+
+    /**
+     * The engine.
+     */
+    private Engine engine;
+
+    /**
+     * The index of the next puzzle.
+     */
+    private int next = 0;
+
+    /**
+     * Loads the puzzles and creates the engine.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        puzzles = new Corpus(corpus);
+        engine = engineType.create();
+    }
+
+    /**
+     * Solves the next puzzle.
+     *
+     * @return the result, so that the solve is not optimised away.
+     */
+    @Benchmark
+    public SolveResult solve() {
+        int[] givens = puzzles.puzzle(next);
+        next = next + 1 == puzzles.size() ? 0 : next + 1;
+        return engine.solve(givens);
+    }
+
+    /**
+     * Checks the next puzzle for a unique solution, which must search the whole tree.
+     *
+     * @return the number of solutions found, at most 2.
+     */
+    @Benchmark
+    public int countSolutions() {
+        int[] givens = puzzles.puzzle(next);
+        next = next + 1 == puzzles.size() ? 0 : next + 1;
+        return engine.countSolutions(givens, 2);
+    }
+}
@@ -0,0 +1,189 @@
+package com.kabirkanha.sudoku;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class generates many puzzles on several threads and writes them in the one-line format.
+ * <br>The puzzles are made in chunks; every chunk gets its own seed derived from the base seed, so a run is reproducible
+ * for a given seed no matter how many threads it uses. Every worker thread keeps its own Generator.
+ */
+final class BatchGenerator {
+    /**
+     * The number of puzzles generated by one task.
+     */
+    private static final int CHUNK_SIZE = 64;
+
+    /**
+     * The size of the whole grid.
+     */
+    private final int size;
+
+    /**
+     * The difficulty level of the puzzles.
+     */
+    private final Grade.Level level;
+
+    /**
+     * The most givens a puzzle may have; -1 for as few as possible.
+     */
+    private final int maxClues;
+
+    /**
+     * The number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * The number of puzzles written in the last run.
+     */
+    private long generated = 0;
+
+    /**
+     * The number of puzzles given up on in the last run.
+     */
+    private long failed = 0;
+
+    /**
+     * The time spent in the last run, in nanoseconds.
+     */
+    private long elapsed = 0;
+
+    /**
+     * The output of one chunk.
+     */
+    private static final class Chunk {
+        /**
+         * The output lines of the chunk.
+         */
+        final StringBuilder text = new StringBuilder();
+
+        /**
+         * The number of puzzles in the chunk.
+         */
+        int generated = 0;
+
+        /**
+         * The number of puzzles the chunk gave up on.
+         */
+        int failed = 0;
+    }
+
+    /**
+     * Constructor for the BatchGenerator class.
+     *
+     * @param size     the size of the whole grid.
+     * @param level    the difficulty level of the puzzles.
+     * @param maxClues the most givens a puzzle may have; -1 for as few as possible.
+     * @param threads  the number of worker threads.
+     */
+    BatchGenerator(int size, Grade.Level level, int maxClues, int threads) {
+        if (maxClues != -1)
+            Generator.checkClues(size, maxClues);
+        else
+            PropagationEngine.subGridSize(size);
+        if (threads < 1)
+            throw new IllegalArgumentException("Thread count must be positive");
+        this.size = size;
+        this.level = level;
+        this.maxClues = maxClues;
+        this.threads = threads;
+    }
+
+    /**
+     * Generates puzzles and writes them one per line.
+     *
+     * @param count the number of puzzles to generate.
+     * @param seed  the base seed.
+     * @param out   receives the puzzles.
+     * @throws IOException if writing fails.
+     */
+    void run(long count, long seed, Writer out) throws IOException {
+        ExecutorService pool = Executors.newWorkStealingPool(threads);
+        ThreadLocal<Generator> generators = ThreadLocal.withInitial(() -> new Generator(size, seed));
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+        int window = threads * 4;
+        generated = 0;
+        failed = 0;
+        long start = System.nanoTime();
+
+        try {
+            for (long first = 0; first < count; first += CHUNK_SIZE) {
+                int n = (int) Math.min(CHUNK_SIZE, count - first);
+                //Spread the chunk seeds apart (golden ratio increment, as in SplittableRandom).
+                long chunkSeed = seed + (first / CHUNK_SIZE + 1) * 0x9E3779B97F4A7C15L;
+                pending.add(pool.submit(() -> generateChunk(generators.get(), chunkSeed, n)));
+                if (pending.size() >= window)
+                    write(pending.poll(), out);
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), out);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating");
+        } finally {
+            pool.shutdownNow();
+        }
+        out.flush();
+        elapsed = System.nanoTime() - start;
+    }
+
+    /**
+     * Generates the puzzles of one chunk on the current worker thread.
+     *
+     * @param generator the worker's own generator.
+     * @param seed      the seed of the chunk.
+     * @param count     the number of puzzles.
+     * @return the output of the chunk.
+     */
+    private Chunk generateChunk(Generator generator, long seed, int count) {
+        Chunk chunk = new Chunk();
+        generator.setSeed(seed);
+        for (int i = 0; i < count; ++i) {
+            int[] puzzle = maxClues < 0 ? generator.generate(level) : generator.generate(level, maxClues);
+            if (puzzle == null) {
+                chunk.failed++;
+                continue;
+            }
+            PuzzleFormat.appendLine(puzzle, chunk.text);
+            chunk.text.append('\n');
+            chunk.generated++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Waits for a chunk and writes its output.
+     *
+     * @param future the chunk.
+     * @param out    the output.
+     * @throws IOException          if writing fails or the chunk failed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private void write(Future<Chunk> future, Writer out) throws IOException, InterruptedException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Generating failed", e.getCause());
+        }
+        out.append(chunk.text);
+        generated += chunk.generated;
+        failed += chunk.failed;
+    }
+
+    /**
+     * @return a one-line summary of the last run.
+     */
+    String summary() {
+        double seconds = elapsed / 1e9;
+        return String.format("Generated %d %s puzzles (%d given up) in %.3f s (%.0f puzzles/s on %d threads)", generated, level, failed, seconds, seconds > 0 ? generated / seconds : 0.0, threads);
+    }
+}
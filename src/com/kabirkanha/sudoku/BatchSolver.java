@@ -0,0 +1,226 @@
+package com.kabirkanha.sudoku;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * This class solves a stream of puzzles without the GUI.
+ * <br>Puzzles are read with a PuzzleReader and answered one per line, in the same order, so files of any size can be processed in constant memory.
+ * <br>Every output line holds the solution (or the outcome if there is none), a tab and the solve time in microseconds.
+ * When grading, the solution is replaced by the rating, the level and the techniques used, separated by tabs.
+ * <br>Grids of different sizes and formats may be mixed; grids larger than PuzzleFormat.MAX_LINE_SIZE are MALFORMED,
+ * as their solutions cannot be written on one line.
+ */
+final class BatchSolver {
+    /**
+     * The kind of engine that does the solving.
+     */
+    private final EngineType engineType;
+
+    /**
+     * Whether puzzles are graded instead of solved.
+     */
+    private final boolean grading;
+
+    /**
+     * One engine per grid size, created when the first puzzle of that size is seen.
+     */
+    private final Engine[] engines = new Engine[PuzzleFormat.MAX_LINE_SIZE + 1];
+
+    /**
+     * Reusable buffers for the givens of the current puzzle, one per grid size.
+     */
+    private final int[][] givens = new int[PuzzleFormat.MAX_LINE_SIZE + 1][];
+
+    /**
+     * One grader per grid size when grading, created when the first puzzle of that size is seen.
+     */
+    private final Grader[] graders = new Grader[PuzzleFormat.MAX_LINE_SIZE + 1];
+
+    /**
+     * The cache the engines look puzzles up in; null for none.
+     */
+    private final SolutionCache cache;
+
+    /**
+     * Receives the statistics of every puzzle.
+     */
+    private final SolverMetrics metrics = SolverMetrics.global();
+
+    /**
+     * The number of puzzles read in the last run.
+     */
+    private long puzzles = 0;
+
+    /**
+     * The number of puzzles solved in the last run.
+     */
+    private long solved = 0;
+
+    /**
+     * The time spent in the last run, in nanoseconds.
+     */
+    private long elapsed = 0;
+
+    /**
+     * Constructor for the BatchSolver class.
+     *
+     * @param engineType the kind of engine to solve with; not used when grading.
+     * @param grading    true to grade the puzzles instead of printing their solutions.
+     */
+    BatchSolver(EngineType engineType, boolean grading) {
+        this(engineType, grading, null);
+    }
+
+    /**
+     * Constructor for the BatchSolver class.
+     *
+     * @param engineType the kind of engine to solve with; not used when grading.
+     * @param grading    true to grade the puzzles instead of printing their solutions.
+     * @param cache      the cache to look solved puzzles up in, possibly shared with other solvers; null for none.
+     */
+    BatchSolver(EngineType engineType, boolean grading, SolutionCache cache) {
+        this.engineType = engineType;
+        this.grading = grading;
+        this.cache = cache;
+    }
+
+    /**
+     * Solves every puzzle in a stream.
+     *
+     * @param in  the puzzles.
+     * @param out receives one line per puzzle.
+     * @throws IOException if reading or writing fails.
+     */
+    void run(PuzzleReader in, Writer out) throws IOException {
+        StringBuilder line = new StringBuilder();
+        puzzles = 0;
+        solved = 0;
+        long start = System.nanoTime();
+
+        int size;
+        while ((size = in.next()) != PuzzleReader.END) {
+            ++puzzles;
+            line.setLength(0);
+            if (solve(size, in.cells(), line))
+                ++solved;
+            out.append(line);
+        }
+        out.flush();
+        elapsed = System.nanoTime() - start;
+    }
+
+    /**
+     * Solves every puzzle in a packed file, unpacking each straight from the mapping into the givens buffer.
+     *
+     * @param in  the puzzles.
+     * @param out receives one line per puzzle.
+     * @throws IOException if writing fails.
+     */
+    void run(PackedPuzzles in, Writer out) throws IOException {
+        StringBuilder line = new StringBuilder();
+        puzzles = 0;
+        solved = 0;
+        long start = System.nanoTime();
+
+        int size = in.getSize();
+        PackedPuzzles.View view = in.view();
+        while (view.next()) {
+            ++puzzles;
+            line.setLength(0);
+            if (solve(size, view, line))
+                ++solved;
+            out.append(line);
+        }
+        out.flush();
+        elapsed = System.nanoTime() - start;
+    }
+
+    /**
+     * Solves the puzzle a view is on and appends its output line.
+     *
+     * @param size the size of the grid.
+     * @param view the puzzle.
+     * @param out  receives the output line, including the line break.
+     * @return true if the puzzle was solved.
+     */
+    boolean solve(int size, PackedPuzzles.View view, StringBuilder out) {
+        if (size > PuzzleFormat.MAX_LINE_SIZE)
+            return solve(size, (int[]) null, out);
+        int[] puzzle = givens(size);
+        return solve(view.copyTo(puzzle) ? size : PuzzleReader.MALFORMED, puzzle, out);
+    }
+
+    /**
+     * Solves one parsed puzzle and appends its output line.
+     *
+     * @param size   the size of the grid, or PuzzleReader.MALFORMED if the puzzle could not be parsed.
+     * @param puzzle the givens in row-major order, 0 for an empty cell; not modified.
+     * @param out    receives the output line, including the line break.
+     * @return true if the puzzle was solved.
+     */
+    boolean solve(int size, int[] puzzle, StringBuilder out) {
+        long t = System.nanoTime();
+        SolveResult result = null;
+        SolveResult.Status status = null;
+        int[] solution = null;
+        Grade grade = null;
+        if (size > 0 && size <= PuzzleFormat.MAX_LINE_SIZE) {
+            givens(size);
+            if (grading) {
+                grade = graders[size].grade(puzzle);
+                status = grade.getStatus();
+            } else {
+                result = engines[size].solve(puzzle);
+                status = result.getStatus();
+                solution = result.getSolution();
+            }
+        }
+        long nanos = System.nanoTime() - t;
+        if (result != null)
+            metrics.record(result);
+        else if (status != null)
+            metrics.record(status, nanos);
+        else
+            metrics.recordMalformed();
+
+        if (status == null) {
+            out.append("MALFORMED");
+        } else if (status != SolveResult.Status.SOLVED) {
+            out.append(status);
+        } else if (grade != null) {
+            grade.appendTo(out);
+        } else {
+            PuzzleFormat.appendLine(solution, out);
+        }
+        out.append('\t').append(nanos / 1000).append('\n');
+        return status == SolveResult.Status.SOLVED;
+    }
+
+    /**
+     * Returns the givens buffer of a size, creating it and the engine or grader of that size on first use.
+     *
+     * @param size the size of the grid, at most PuzzleFormat.MAX_LINE_SIZE.
+     * @return the reusable givens buffer.
+     */
+    int[] givens(int size) {
+        if (givens[size] == null) {
+            givens[size] = new int[size * size];
+            if (grading)
+                graders[size] = new Grader(size);
+            else if (cache != null)
+                engines[size] = new CachingEngine(engineType.create(size), cache);
+            else
+                engines[size] = engineType.create(size);
+        }
+        return givens[size];
+    }
+
+    /**
+     * @return a one-line summary of the last run.
+     */
+    String summary() {
+        double seconds = elapsed / 1e9;
+        return String.format("Solved %d of %d puzzles in %.3f s (%.0f puzzles/s)", solved, puzzles, seconds, seconds > 0 ? puzzles / seconds : 0.0);
+    }
+}
@@ -0,0 +1,90 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * An engine that looks puzzles up in a SolutionCache before handing them to another engine.
+ * <br>A 9x9 puzzle is put in its canonical form first, so repeats and symmetric variants of a solved puzzle are answered
+ * from the cache, with the stored solution mapped back to the layout and digits of the puzzle at hand.
+ * Other sizes, and solution counting, go straight to the wrapped engine.
+ * <br>The cache may be shared between threads; like any engine, an instance must not be.
+ */
+final class CachingEngine implements Engine {
+    /**
+     * The engine that solves the puzzles the cache does not know.
+     */
+    private final Engine engine;
+
+    /**
+     * The cache.
+     */
+    private final SolutionCache cache;
+
+    /**
+     * Computes the canonical forms; null for sizes other than 9x9.
+     */
+    private final Canonicalizer canonicalizer;
+
+    /**
+     * The canonical form of the current puzzle.
+     */
+    private final int[] canonical = new int[Canonicalizer.SIZE * Canonicalizer.SIZE];
+
+    /**
+     * A solution in the canonical layout.
+     */
+    private final int[] canonicalSolution = new int[Canonicalizer.SIZE * Canonicalizer.SIZE];
+
+    /**
+     * Constructor for the CachingEngine class.
+     *
+     * @param engine the engine that solves the puzzles the cache does not know; owned by the new object.
+     * @param cache  the cache, possibly shared.
+     */
+    CachingEngine(Engine engine, SolutionCache cache) {
+        this.engine = engine;
+        this.cache = cache;
+        this.canonicalizer = engine.getSize() == Canonicalizer.SIZE ? new Canonicalizer() : null;
+    }
+
+    @Override
+    public SolveResult solve(int[] givens) {
+        if (canonicalizer == null)
+            return engine.solve(givens);
+        long start = System.nanoTime();
+        try {
+            canonicalizer.canonicalize(givens, canonical);
+        } catch (IllegalArgumentException e) {
+            //Let the engine deal with grids that have no canonical form.
+            return engine.solve(givens);
+        }
+
+        SolveResult.Status status = cache.get(canonical, canonicalSolution);
+        if (status == SolveResult.Status.SOLVED) {
+            int[] solution = new int[givens.length];
+            canonicalizer.fromCanonical(canonicalSolution, solution);
+            return new SolveResult(status, solution, SolveStats.ofSearch(0, 0, 0, System.nanoTime() - start));
+        }
+        if (status == SolveResult.Status.INVALID)
+            return new SolveResult(status, null, SolveStats.ofSearch(0, 0, 0, System.nanoTime() - start));
+
+        SolveResult result = engine.solve(givens);
+        if (result.isSolved())
+            canonicalizer.toCanonical(result.getSolution(), canonicalSolution);
+        cache.put(canonical, result.getStatus(), canonicalSolution);
+        return result;
+    }
+
+    @Override
+    public int countSolutions(int[] givens, int limit) {
+        return engine.countSolutions(givens, limit);
+    }
+
+    @Override
+    public int getSize() {
+        return engine.getSize();
+    }
+
+    @Override
+    public void setMaxNodes(long maxNodes) {
+        engine.setMaxNodes(maxNodes);
+    }
+}
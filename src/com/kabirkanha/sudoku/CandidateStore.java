@@ -0,0 +1,188 @@
+package com.kabirkanha.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * This class stores the remaining candidates of every cell as a bitmask in a flat primitive array.
+ * <br>Bit (k - 1) of a cell's mask is set if k is still a candidate for that cell; a long mask fits grids of up to 64x64.
+ * <br>Every change is recorded on an undo trail, so a guess can be taken back by unwinding only the changes made since it.
+ */
+final class CandidateStore {
+    /**
+     * One bitmask per cell, in row-major order.
+     */
+    private final long[] masks;
+
+    /**
+     * The mask with every candidate set.
+     */
+    private final long all;
+
+    /**
+     * The cells changed since the last reset, oldest first.
+     */
+    private final int[] trailCells;
+
+    /**
+     * The masks those cells had before each change.
+     */
+    private final long[] trailMasks;
+
+    /**
+     * The number of entries on the trail.
+     */
+    private int trailSize = 0;
+
+    /**
+     * Constructor for the CandidateStore class.
+     *
+     * @param cells the number of cells in the grid.
+     * @param size  the number of candidates per cell.
+     */
+    CandidateStore(int cells, int size) {
+        masks = new long[cells];
+        all = size == Long.SIZE ? -1L : (1L << size) - 1;
+
+        //Every entry still on the trail removed at least one candidate that is still removed, so this is an upper bound.
+        trailCells = new int[cells * size];
+        trailMasks = new long[cells * size];
+        reset();
+    }
+
+    /**
+     * Makes every candidate possible in every cell.
+     */
+    void reset() {
+        Arrays.fill(masks, all);
+        trailSize = 0;
+    }
+
+    /**
+     * @return the mask with every candidate set.
+     */
+    long all() {
+        return all;
+    }
+
+    /**
+     * @param cell the index of the cell.
+     * @return the candidates of the cell.
+     */
+    long get(int cell) {
+        return masks[cell];
+    }
+
+    /**
+     * @param cell the index of the cell.
+     * @param mask the new candidates of the cell.
+     */
+    void set(int cell, long mask) {
+        long old = masks[cell];
+        if (old != mask) {
+            record(cell, old);
+            masks[cell] = mask;
+        }
+    }
+
+    /**
+     * @param cell the index of the cell.
+     * @return the number of candidates left in the cell.
+     */
+    int count(int cell) {
+        return Long.bitCount(masks[cell]);
+    }
+
+    /**
+     * @param cell the index of the cell.
+     * @return the value of the cell if only one candidate is left; 0 otherwise.
+     */
+    int value(int cell) {
+        long mask = masks[cell];
+        if (mask == 0 || (mask & (mask - 1)) != 0)
+            return 0;
+        return valueOf(mask);
+    }
+
+    /**
+     * Removes candidates from a cell.
+     *
+     * @param cell the index of the cell.
+     * @param mask the candidates to remove.
+     * @return true if the cell lost at least one candidate.
+     */
+    boolean remove(int cell, long mask) {
+        long old = masks[cell];
+        if ((old & mask) == 0)
+            return false;
+        record(cell, old);
+        masks[cell] = old & ~mask;
+        return true;
+    }
+
+    /**
+     * Leaves a single candidate in a cell.
+     *
+     * @param cell  the index of the cell.
+     * @param value the value to fix the cell to.
+     */
+    void fix(int cell, int value) {
+        set(cell, bit(value));
+    }
+
+    /**
+     * Creates a restore point.
+     *
+     * @return the position of the trail to pass to undo().
+     */
+    int mark() {
+        return trailSize;
+    }
+
+    /**
+     * Takes back every change made since a restore point.
+     *
+     * @param mark the value returned by mark().
+     */
+    void undo(int mark) {
+        while (trailSize > mark) {
+            --trailSize;
+            masks[trailCells[trailSize]] = trailMasks[trailSize];
+        }
+    }
+
+    /**
+     * Records the old mask of a cell before it changes.
+     *
+     * @param cell the index of the cell.
+     * @param old  its mask before the change.
+     */
+    private void record(int cell, long old) {
+        trailCells[trailSize] = cell;
+        trailMasks[trailSize] = old;
+        trailSize++;
+    }
+
+    /**
+     * @param value a candidate.
+     * @return the mask with only that candidate set.
+     */
+    static long bit(int value) {
+        return 1L << (value - 1);
+    }
+
+    /**
+     * @param mask a non-empty mask.
+     * @return the mask with only its lowest candidate set.
+     */
+    static long lowest(long mask) {
+        return mask & -mask;
+    }
+
+    /**
+     * @param mask a non-empty mask.
+     * @return the lowest candidate in the mask.
+     */
+    static int valueOf(long mask) {
+        return Long.numberOfTrailingZeros(mask) + 1;
+    }
+}
@@ -0,0 +1,827 @@
+package com.kabirkanha.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * This class computes the canonical form of a 9x9 puzzle: the smallest grid, read in row-major order with 0 for an empty
+ * cell, among all grids that are the same puzzle up to the standard symmetries. Those are transposition, permuting the
+ * bands, the rows within a band, the stacks and the columns within a stack, and relabelling the digits; rotations and
+ * reflections follow from them. Two puzzles have the same canonical form exactly when one can be turned into the other.
+ * <br>The form is built one row at a time. For every way of choosing the rows so far (and a transposition and column
+ * order) the next row is read with the digits labelled in order of first appearance, and only the choices that give the
+ * smallest row are kept. Choices that lead to the same state, i.e. the same rows left, column order and labels, are
+ * merged, so the work stays bounded even for nearly empty grids.
+ * <br>Columns are not fixed up front. Columns that are empty in every row so far may still be swapped within their
+ * stack, and stacks that are empty so far may still be swapped with each other, so they are kept in index order and
+ * only sorted when a row tells them apart: empty cells first, then labelled digits by label, then new digits. Only new
+ * digits in such interchangeable places make choices branch, as their order decides their labels. A complete grid has
+ * no empty places at all, so its first two rows are chosen together over all column orders instead.
+ * <br>The transformation found by the last call is kept, so that other grids, e.g. a solution, can be mapped to and
+ * from the canonical form. An instance keeps its working state, so it must not be shared between threads.
+ */
+final class Canonicalizer {
+    /**
+     * The only grid size supported.
+     */
+    static final int SIZE = 9;
+
+    /**
+     * The number of cells of a grid.
+     */
+    private static final int CELLS = SIZE * SIZE;
+
+    /**
+     * The symbol of a digit that has no label yet; larger than every label.
+     */
+    private static final int NEW = SIZE + 1;
+
+    /**
+     * The permutations of three things.
+     */
+    private static final int[][] PERM3 = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+
+    /**
+     * PERM3_INDEX[9a + 3b + c] is the index into PERM3 of the permutation {a, b, c}.
+     */
+    private static final int[] PERM3_INDEX = new int[27];
+
+    /**
+     * The number of column orders that keep the stacks together.
+     */
+    private static final int COLUMN_ORDERS = 6 * 6 * 6 * 6;
+
+    /**
+     * COLUMNS[c][j] is the column that comes j-th in column order c; c is ((s * 6 + p0) * 6 + p1) * 6 + p2 for the
+     * order s of the stacks and the orders p0, p1 and p2 of the columns in the first, second and third stack placed.
+     */
+    private static final byte[][] COLUMNS = new byte[COLUMN_ORDERS][SIZE];
+
+    /**
+     * POSITIONS[c][k] is the place of column k in column order c, i.e. the inverse of COLUMNS[c].
+     */
+    private static final byte[][] POSITIONS = new byte[COLUMN_ORDERS][SIZE];
+
+    static {
+        for (int p = 0; p < 6; ++p) {
+            PERM3_INDEX[9 * PERM3[p][0] + 3 * PERM3[p][1] + PERM3[p][2]] = p;
+        }
+        int c = 0;
+        for (int[] stacks : PERM3) {
+            for (int[] p0 : PERM3) {
+                for (int[] p1 : PERM3) {
+                    for (int[] p2 : PERM3) {
+                        int[][] within = {p0, p1, p2};
+                        for (int j = 0; j < SIZE; ++j) {
+                            COLUMNS[c][j] = (byte) (3 * stacks[j / 3] + within[j / 3][j % 3]);
+                            POSITIONS[c][COLUMNS[c][j]] = (byte) j;
+                        }
+                        ++c;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The grid being canonicalised, as given (index 0) and transposed (index 1).
+     */
+    private final int[][] grids = new int[2][CELLS];
+
+    /**
+     * rowGivens[t][r] is the bit set of the columns of row r of grids[t] that hold a given.
+     */
+    private final int[][] rowGivens = new int[2][SIZE];
+
+    /**
+     * The current and the next generation of choices, as parallel arrays.
+     */
+    private Choices current = new Choices(), next = new Choices();
+
+    /**
+     * The smallest row found so far for the row being built.
+     */
+    private final int[] best = new int[SIZE];
+
+    /**
+     * The row being tried.
+     */
+    private final int[] row = new int[SIZE];
+
+    /**
+     * The symbol of every column of the row being tried: 0 for an empty cell, the label of a labelled digit, else NEW.
+     */
+    private final int[] symbols = new int[SIZE];
+
+    /**
+     * The columns in the order that gives the smallest reading of the row being tried; permuted in place while branching.
+     */
+    private final int[] layout = new int[SIZE];
+
+    /**
+     * The runs of places in the layout whose contents may be permuted without changing the row: the first place, the
+     * number of units and the width of a unit (1 for columns, 3 for whole stacks).
+     */
+    private final int[] runStart = new int[SIZE], runLength = new int[SIZE], runUnit = new int[SIZE];
+
+    /**
+     * The number of runs in use.
+     */
+    private int runCount;
+
+    /**
+     * The choice being extended while branching: its transposition, the rows used and the columns with givens
+     * including the new row, its labels and the rows in order.
+     */
+    private int branchTransposed, branchUsed, branchFilled, branchLabelCount;
+
+    /**
+     * The labels of the choice being extended, before the new row.
+     */
+    private long branchLabels;
+
+    /**
+     * The rows of the choice being extended, including the new row.
+     */
+    private long branchRows;
+
+    /**
+     * The index of the first cell of the new row in grids[branchTransposed].
+     */
+    private int branchRow;
+
+    /**
+     * The column of every digit in the first row being tried for a complete grid.
+     */
+    private final int[] columnOf = new int[SIZE + 1];
+
+    /**
+     * sigma[k] is the column of the first row that holds the digit in column k of the second row being tried.
+     */
+    private final int[] sigma = new int[SIZE];
+
+    /**
+     * The states already in the next generation, for merging; an open addressing hash set.
+     */
+    private long[] seen = new long[1 << 12];
+
+    /**
+     * The generation in which each slot of seen was filled; a slot of an older generation is empty, so that the set is
+     * emptied by moving on to the next generation.
+     */
+    private int[] seenStamps = new int[1 << 12];
+
+    /**
+     * The current generation of seen.
+     */
+    private int stamp = 0;
+
+    /**
+     * Whether the last transformation transposes the grid.
+     */
+    private boolean transposed;
+
+    /**
+     * rows[i] is the row (after any transposition) that comes i-th in the canonical form.
+     */
+    private final int[] rows = new int[SIZE];
+
+    /**
+     * columns[j] is the column (after any transposition) that comes j-th in the canonical form.
+     */
+    private final int[] columns = new int[SIZE];
+
+    /**
+     * labels[d] is the canonical label of digit d; labels[0] is 0.
+     */
+    private final int[] labels = new int[SIZE + 1];
+
+    /**
+     * digits[l] is the digit with canonical label l; digits[0] is 0.
+     */
+    private final int[] digits = new int[SIZE + 1];
+
+    /**
+     * One generation of partial transformations.
+     */
+    private static final class Choices {
+        /**
+         * The number of choices.
+         */
+        int count = 0;
+
+        /**
+         * 1 if the choice transposes the grid, else 0.
+         */
+        int[] transposed = new int[64];
+
+        /**
+         * The bit set of the rows already used.
+         */
+        int[] used = new int[64];
+
+        /**
+         * The bit set of the columns with a given in the rows already used.
+         */
+        int[] filled = new int[64];
+
+        /**
+         * The index of the column order into COLUMNS. Stacks without givens so far come first and columns without givens
+         * so far come first in their stack, both in index order, as their order is still open.
+         */
+        int[] columnOrder = new int[64];
+
+        /**
+         * The labels given so far, 4 bits per digit: bits 4d to 4d + 3 hold the label of digit d, 0 if it has none.
+         */
+        long[] labels = new long[64];
+
+        /**
+         * The number of labels given so far.
+         */
+        int[] labelCount = new int[64];
+
+        /**
+         * The rows used so far, 4 bits per canonical row in order.
+         */
+        long[] rows = new long[64];
+
+        /**
+         * Appends a choice, growing the arrays as needed.
+         *
+         * @param transposed  1 if the grid is transposed.
+         * @param used        the bit set of the rows used.
+         * @param filled      the bit set of the columns with givens in those rows.
+         * @param columnOrder the column order.
+         * @param labels      the labels given so far.
+         * @param labelCount  the number of labels given so far.
+         * @param rows        the rows used so far, in order.
+         */
+        void add(int transposed, int used, int filled, int columnOrder, long labels, int labelCount, long rows) {
+            if (count == this.used.length) {
+                int capacity = 2 * count;
+                this.transposed = Arrays.copyOf(this.transposed, capacity);
+                this.used = Arrays.copyOf(this.used, capacity);
+                this.filled = Arrays.copyOf(this.filled, capacity);
+                this.columnOrder = Arrays.copyOf(this.columnOrder, capacity);
+                this.labels = Arrays.copyOf(this.labels, capacity);
+                this.labelCount = Arrays.copyOf(this.labelCount, capacity);
+                this.rows = Arrays.copyOf(this.rows, capacity);
+            }
+            this.transposed[count] = transposed;
+            this.used[count] = used;
+            this.filled[count] = filled;
+            this.columnOrder[count] = columnOrder;
+            this.labels[count] = labels;
+            this.labelCount[count] = labelCount;
+            this.rows[count] = rows;
+            ++count;
+        }
+    }
+
+    /**
+     * Computes the canonical form of a puzzle and remembers the transformation that gives it.
+     *
+     * @param grid      the puzzle in row-major order, 81 cells with 0 for an empty cell; not modified.
+     * @param canonical receives the canonical form; may be the same array as grid.
+     * @throws IllegalArgumentException if the grid is not 9x9 or holds a value out of range.
+     */
+    void canonicalize(int[] grid, int[] canonical) {
+        if (grid.length != CELLS || canonical.length != CELLS)
+            throw new IllegalArgumentException("Only 9x9 grids have a canonical form");
+        boolean complete = true;
+        for (int r = 0; r < SIZE; ++r) {
+            rowGivens[0][r] = rowGivens[1][r] = 0;
+        }
+        for (int r = 0; r < SIZE; ++r) {
+            for (int c = 0; c < SIZE; ++c) {
+                int value = grid[r * SIZE + c];
+                if (value < 0 || value > SIZE)
+                    throw new IllegalArgumentException("Value " + value + " out of range");
+                grids[0][r * SIZE + c] = value;
+                grids[1][c * SIZE + r] = value;
+                if (value != 0) {
+                    rowGivens[0][r] |= 1 << c;
+                    rowGivens[1][c] |= 1 << r;
+                } else {
+                    complete = false;
+                }
+            }
+        }
+
+        int level = 0;
+        if (complete) {
+            firstTwoRows();
+            for (int j = 0; j < SIZE; ++j) {
+                canonical[j] = j + 1;
+            }
+            System.arraycopy(best, 0, canonical, SIZE, SIZE);
+            level = 2;
+        } else {
+            next.count = 0;
+            next.add(0, 0, 0, 0, 0, 0, 0);
+            next.add(1, 0, 0, 0, 0, 0, 0);
+        }
+        swap();
+        for (; level < SIZE; ++level) {
+            extend(level);
+            System.arraycopy(best, 0, canonical, level * SIZE, SIZE);
+            swap();
+        }
+        remember();
+    }
+
+    /**
+     * Makes the next generation the current one.
+     */
+    private void swap() {
+        Choices swap = current;
+        current = next;
+        next = swap;
+    }
+
+    /**
+     * Builds the second generation of a complete grid directly: every transposition, first two rows of a band and column
+     * order that give the smallest second row.
+     * <br>Whatever the column order, a complete first row reads 1 to 9, so every column order would be a choice of its
+     * own after the first row. Reading the second row right away instead keeps only the few that matter: its cell in
+     * place j is one more than the place of the column of the first row that holds the same digit.
+     */
+    private void firstTwoRows() {
+        next.count = 0;
+        ++stamp;
+        boolean found = false;
+        for (int t = 0; t < 2; ++t) {
+            int[] cells = grids[t];
+            for (int first = 0; first < SIZE; ++first) {
+                for (int c = 0; c < SIZE; ++c) {
+                    columnOf[cells[first * SIZE + c]] = c;
+                }
+                int band = first - first % 3;
+                for (int second = band; second < band + 3; ++second) {
+                    if (second == first)
+                        continue;
+                    for (int c = 0; c < SIZE; ++c) {
+                        sigma[c] = columnOf[cells[second * SIZE + c]];
+                    }
+                    for (int o = 0; o < COLUMN_ORDERS; ++o) {
+                        //Skip the orders that share a first stack, or first two stacks, that cannot give the best row.
+                        if (found && o % 36 == 0 && cannotMatch(o, 1)) {
+                            o += 35;
+                            continue;
+                        }
+                        if (found && o % 6 == 0 && cannotMatch(o, 2)) {
+                            o += 5;
+                            continue;
+                        }
+                        byte[] order = COLUMNS[o];
+                        byte[] position = POSITIONS[o];
+                        //0 while equal to the best row so far, 1 once smaller.
+                        int compare = found ? 0 : 1;
+                        boolean worse = false;
+                        for (int j = 0; j < SIZE; ++j) {
+                            int value = position[sigma[order[j]]] + 1;
+                            if (compare == 0 && value != best[j]) {
+                                if (value > best[j]) {
+                                    worse = true;
+                                    break;
+                                }
+                                compare = 1;
+                            }
+                            row[j] = value;
+                        }
+                        if (worse)
+                            continue;
+                        if (compare == 1) {
+                            System.arraycopy(row, 0, best, 0, SIZE);
+                            found = true;
+                            next.count = 0;
+                            ++stamp;
+                        }
+                        long labels = 0;
+                        for (int j = 0; j < SIZE; ++j) {
+                            labels |= (long) (j + 1) << (4 * cells[first * SIZE + order[j]]);
+                        }
+                        int used = (1 << first) | (1 << second);
+                        long key = (labels << 21) | ((long) t << 20) | ((long) used << 11) | o;
+                        if (firstSeen(key))
+                            next.add(t, used, (1 << SIZE) - 1, o, labels, SIZE, first | ((long) second << 4));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether the second row of a complete grid reads larger than the best row so far for every column order that
+     * places the same stacks and columns in the first slots as a given one.
+     * <br>The cells in those slots are known as far as they refer to columns in those slots too. A cell that refers to a
+     * later slot reads at least the smallest place of that slot not taken by an earlier such cell, plus one, as the
+     * columns of that slot can still be put in any order.
+     *
+     * @param columnOrder the column order.
+     * @param slots       the number of slots that are fixed.
+     * @return true if no such column order reads the best row or smaller.
+     */
+    private boolean cannotMatch(int columnOrder, int slots) {
+        byte[] order = COLUMNS[columnOrder];
+        byte[] position = POSITIONS[columnOrder];
+        //The number of places taken in every open slot, 2 bits per slot.
+        int taken = 0;
+        for (int j = 0; j < 3 * slots; ++j) {
+            int place = position[sigma[order[j]]];
+            int slot = place / 3;
+            if (slot >= slots) {
+                int shift = 2 * slot;
+                place = 3 * slot + ((taken >>> shift) & 3);
+                taken += 1 << shift;
+            }
+            if (place + 1 != best[j])
+                return place + 1 > best[j];
+        }
+        return false;
+    }
+
+    /**
+     * Builds the next generation: every choice extended by every row that may come next, keeping only those that give
+     * the smallest row.
+     *
+     * @param level the index of the row being built.
+     */
+    private void extend(int level) {
+        next.count = 0;
+        ++stamp;
+        boolean found = false;
+
+        for (int n = 0; n < current.count; ++n) {
+            int t = current.transposed[n];
+            int used = current.used[n];
+            int filled = current.filled[n];
+            long labels = current.labels[n];
+            int labelCount = current.labelCount[n];
+            byte[] order = COLUMNS[current.columnOrder[n]];
+            int[] cells = grids[t];
+            int candidates = candidateRows(level, used);
+            for (int r = 0; r < SIZE; ++r) {
+                if ((candidates & (1 << r)) == 0)
+                    continue;
+                for (int c = 0; c < SIZE; ++c) {
+                    int digit = cells[r * SIZE + c];
+                    int label = (int) (labels >>> (4 * digit)) & 0xF;
+                    symbols[c] = digit == 0 ? 0 : label != 0 ? label : NEW;
+                }
+                arrange(order, filled);
+
+                //Number the new digits in order of appearance, and compare with the best row so far.
+                int label = labelCount;
+                //0 while equal to the best row so far, 1 once smaller.
+                int compare = found ? 0 : 1;
+                boolean worse = false;
+                for (int j = 0; j < SIZE; ++j) {
+                    int value = symbols[layout[j]];
+                    if (value == NEW)
+                        value = ++label;
+                    if (compare == 0 && value != best[j]) {
+                        if (value > best[j]) {
+                            worse = true;
+                            break;
+                        }
+                        compare = 1;
+                    }
+                    row[j] = value;
+                }
+                if (worse)
+                    continue;
+                if (compare == 1) {
+                    //A new smallest row; everything kept so far is worse.
+                    System.arraycopy(row, 0, best, 0, SIZE);
+                    found = true;
+                    next.count = 0;
+                    ++stamp;
+                }
+                branchTransposed = t;
+                branchUsed = used | (1 << r);
+                branchFilled = filled | rowGivens[t][r];
+                branchLabels = labels;
+                branchLabelCount = labelCount;
+                branchRows = current.rows[n] | ((long) r << (4 * level));
+                branchRow = r * SIZE;
+                branch(0, 0);
+            }
+        }
+    }
+
+    /**
+     * Finds the order of the columns that reads a row smallest, given a column order in which the columns and stacks
+     * without givens so far are still open, and the runs of places that tie.
+     * <br>Every stack sorts its open columns by symbol; then the stacks without givens so far are sorted by what they
+     * read. Ties between empty cells stay open in index order. Ties between new digits, which can only be two columns in
+     * the same run of open columns or two open stacks reading the same, are recorded as runs to branch on.
+     *
+     * @param order  the column order of the choice.
+     * @param filled the bit set of the columns with givens so far.
+     */
+    private void arrange(byte[] order, int filled) {
+        int open = 0;
+        for (int slot = 0; slot < 3; ++slot) {
+            int start = 3 * slot;
+            for (int i = start; i < start + 3; ++i) {
+                layout[i] = order[i];
+            }
+            int stackFilled = filled & (7 << (3 * (order[start] / 3)));
+            if (stackFilled == 0)
+                ++open;
+            sortColumns(start, 3 - Integer.bitCount(stackFilled));
+        }
+        //Insertion sort of the open stacks, which are the first ones.
+        for (int i = 1; i < open; ++i) {
+            for (int j = i; j > 0 && compareSlots(j - 1, j) > 0; --j) {
+                swapPlaces(3 * (j - 1), 3 * j, 3);
+            }
+        }
+
+        runCount = 0;
+        for (int i = 0; i < open; ) {
+            int j = i + 1;
+            while (j < open && compareSlots(i, j) == 0) {
+                ++j;
+            }
+            if (j - i > 1 && symbols[layout[3 * i + 2]] == NEW)
+                addRun(3 * i, j - i, 3);
+            i = j;
+        }
+        for (int slot = 0; slot < 3; ++slot) {
+            int end = 3 * slot + 3 - Integer.bitCount(filled & (7 << (3 * (layout[3 * slot] / 3))));
+            int start = end;
+            while (start > 3 * slot && symbols[layout[start - 1]] == NEW) {
+                --start;
+            }
+            if (end - start > 1)
+                addRun(start, end - start, 1);
+        }
+    }
+
+    /**
+     * Sorts the columns in some places of the layout by symbol, then by index.
+     *
+     * @param start  the first place.
+     * @param length the number of places.
+     */
+    private void sortColumns(int start, int length) {
+        for (int i = start + 1; i < start + length; ++i) {
+            int column = layout[i];
+            int key = symbols[column] * SIZE + column;
+            int j = i;
+            for (; j > start && symbols[layout[j - 1]] * SIZE + layout[j - 1] > key; --j) {
+                layout[j] = layout[j - 1];
+            }
+            layout[j] = column;
+        }
+    }
+
+    /**
+     * Compares what two slots of the layout read, then the indexes of their stacks.
+     *
+     * @param a a slot.
+     * @param b another slot.
+     * @return negative, zero or positive as slot a reads smaller than, the same as or larger than slot b; zero only if
+     * they read the same and only empty cells and new digits.
+     */
+    private int compareSlots(int a, int b) {
+        for (int i = 0; i < 3; ++i) {
+            int difference = symbols[layout[3 * a + i]] - symbols[layout[3 * b + i]];
+            if (difference != 0)
+                return difference;
+        }
+        //Equal readings of open stacks hold no labelled digit, as a digit appears only once in a row.
+        if (symbols[layout[3 * a + 2]] == NEW)
+            return 0;
+        return layout[3 * a] - layout[3 * b];
+    }
+
+    /**
+     * Swaps two blocks of places of the layout.
+     *
+     * @param a      the first place of one block.
+     * @param b      the first place of the other block.
+     * @param length the length of the blocks.
+     */
+    private void swapPlaces(int a, int b, int length) {
+        for (int i = 0; i < length; ++i) {
+            int swap = layout[a + i];
+            layout[a + i] = layout[b + i];
+            layout[b + i] = swap;
+        }
+    }
+
+    /**
+     * Records a run of places to branch on.
+     *
+     * @param start  the first place.
+     * @param length the number of units.
+     * @param unit   the width of a unit.
+     */
+    private void addRun(int start, int length, int unit) {
+        runStart[runCount] = start;
+        runLength[runCount] = length;
+        runUnit[runCount] = unit;
+        ++runCount;
+    }
+
+    /**
+     * Adds a choice to the next generation for every order of the units of the runs from a given one on.
+     *
+     * @param run  the run being permuted.
+     * @param unit the first unit of the run not fixed yet.
+     */
+    private void branch(int run, int unit) {
+        if (run == runCount) {
+            addChoice();
+            return;
+        }
+        if (unit >= runLength[run] - 1) {
+            branch(run + 1, 0);
+            return;
+        }
+        int width = runUnit[run];
+        int first = runStart[run] + unit * width;
+        for (int other = unit; other < runLength[run]; ++other) {
+            int place = runStart[run] + other * width;
+            swapPlaces(first, place, width);
+            branch(run, unit + 1);
+            swapPlaces(first, place, width);
+        }
+    }
+
+    /**
+     * Adds the choice being extended, with the new row read in the current layout, to the next generation unless an
+     * equal state is there already.
+     */
+    private void addChoice() {
+        int[] cells = grids[branchTransposed];
+        long labels = branchLabels;
+        int labelCount = branchLabelCount;
+        for (int j = 0; j < SIZE; ++j) {
+            int digit = cells[branchRow + layout[j]];
+            if (digit != 0 && ((labels >>> (4 * digit)) & 0xF) == 0)
+                labels |= (long) ++labelCount << (4 * digit);
+        }
+        int columnOrder = PERM3_INDEX[9 * (layout[0] / 3) + 3 * (layout[3] / 3) + layout[6] / 3];
+        for (int slot = 0; slot < 3; ++slot) {
+            int start = 3 * slot;
+            columnOrder = columnOrder * 6 + PERM3_INDEX[9 * (layout[start] % 3) + 3 * (layout[start + 1] % 3) + layout[start + 2] % 3];
+        }
+        long key = (labels << 21) | ((long) branchTransposed << 20) | ((long) branchUsed << 11) | columnOrder;
+        if (firstSeen(key))
+            next.add(branchTransposed, branchUsed, branchFilled, columnOrder, labels, labelCount, branchRows);
+    }
+
+    /**
+     * Works out which rows may come next.
+     *
+     * @param level the index of the row being built.
+     * @param used  the bit set of the rows already used.
+     * @return the bit set of the rows that may come next.
+     */
+    private static int candidateRows(int level, int used) {
+        int candidates = 0;
+        for (int band = 0; band < 3; ++band) {
+            int bandRows = 7 << (3 * band);
+            int bandUsed = used & bandRows;
+            //A new band starts every third row; otherwise the band in progress is finished first.
+            if (level % 3 == 0 ? bandUsed == 0 : bandUsed != 0 && bandUsed != bandRows)
+                candidates |= bandRows & ~used;
+        }
+        return candidates;
+    }
+
+    /**
+     * Records a state of the next generation.
+     *
+     * @param key the state.
+     * @return true if the state was not seen before.
+     */
+    private boolean firstSeen(long key) {
+        int mask = seen.length - 1;
+        int i = (int) (mix(key) & mask);
+        while (seenStamps[i] == stamp) {
+            if (seen[i] == key)
+                return false;
+            i = (i + 1) & mask;
+        }
+        seen[i] = key;
+        seenStamps[i] = stamp;
+        //Grow when half full, moving over what is there.
+        if ((next.count + 1) * 2 >= seen.length) {
+            long[] oldKeys = seen;
+            int[] oldStamps = seenStamps;
+            seen = new long[oldKeys.length * 2];
+            seenStamps = new int[oldKeys.length * 2];
+            mask = seen.length - 1;
+            for (int k = 0; k < oldKeys.length; ++k) {
+                if (oldStamps[k] == stamp) {
+                    int slot = (int) (mix(oldKeys[k]) & mask);
+                    while (seenStamps[slot] == stamp) {
+                        slot = (slot + 1) & mask;
+                    }
+                    seen[slot] = oldKeys[k];
+                    seenStamps[slot] = stamp;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Spreads the bits of a key for hashing.
+     *
+     * @param key the key.
+     * @return the hash.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        key *= 0xC4CEB9FE1A85EC53L;
+        return key ^ (key >>> 33);
+    }
+
+    /**
+     * Hashes a canonical form into 64 bits, e.g. to tell classes of puzzles apart without keeping their forms.
+     *
+     * @param canonical the canonical form.
+     * @return the fingerprint.
+     */
+    static long fingerprint(int[] canonical) {
+        long hash = canonical.length;
+        //16 cells of 4 bits to a word.
+        for (int i = 0; i < canonical.length; i += 16) {
+            long word = 0;
+            for (int j = i; j < Math.min(i + 16, canonical.length); ++j) {
+                word = (word << 4) | canonical[j];
+            }
+            hash = mix(hash ^ word);
+        }
+        return hash;
+    }
+
+    /**
+     * Keeps the transformation of the first remaining choice, giving the digits that do not appear the remaining labels
+     * in increasing order.
+     */
+    private void remember() {
+        transposed = current.transposed[0] == 1;
+        for (int i = 0; i < SIZE; ++i) {
+            rows[i] = (int) (current.rows[0] >>> (4 * i)) & 0xF;
+            columns[i] = COLUMNS[current.columnOrder[0]][i];
+        }
+        long packed = current.labels[0];
+        int labelCount = current.labelCount[0];
+        for (int d = 1; d <= SIZE; ++d) {
+            int label = (int) (packed >>> (4 * d)) & 0xF;
+            if (label == 0)
+                label = ++labelCount;
+            labels[d] = label;
+            digits[label] = d;
+        }
+    }
+
+    /**
+     * Finds where a cell of the canonical form comes from.
+     *
+     * @param i the row in the canonical form.
+     * @param j the column in the canonical form.
+     * @return the index of the cell in the original grid.
+     */
+    private int source(int i, int j) {
+        int r = rows[i], c = columns[j];
+        return transposed ? c * SIZE + r : r * SIZE + c;
+    }
+
+    /**
+     * Applies the last transformation to another grid of the same puzzle, e.g. its solution.
+     *
+     * @param grid the grid in the original layout; not modified.
+     * @param out  receives the grid in the canonical layout; must not be the same array as grid.
+     */
+    void toCanonical(int[] grid, int[] out) {
+        for (int i = 0; i < SIZE; ++i) {
+            for (int j = 0; j < SIZE; ++j) {
+                out[i * SIZE + j] = labels[grid[source(i, j)]];
+            }
+        }
+    }
+
+    /**
+     * Undoes the last transformation on a grid, e.g. maps the solution of the canonical form back to the original puzzle.
+     *
+     * @param canonical the grid in the canonical layout; not modified.
+     * @param out       receives the grid in the original layout; must not be the same array as canonical.
+     */
+    void fromCanonical(int[] canonical, int[] out) {
+        for (int i = 0; i < SIZE; ++i) {
+            for (int j = 0; j < SIZE; ++j) {
+                out[source(i, j)] = digits[canonical[i * SIZE + j]];
+            }
+        }
+    }
+}
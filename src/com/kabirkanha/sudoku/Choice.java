@@ -29,8 +29,9 @@ class Choice {
      * @param col       the column in which the button lies.
      * @param buttons   the 2D array of buttons in the Sudoku grid.
      * @param mainframe the JFrame in which the Sudoku grid is placed.
+     * @param gridSize  the size of one sub-grid.
      */
-    Choice(JButton[] temp, int row, int col, JButton[][] buttons, JFrame mainframe) {
+    Choice(JButton[] temp, int row, int col, JButton[][] buttons, JFrame mainframe, int gridSize) {
 
         //Declaring the JLabels for the choice frame.
         JLabel labelChoice1 = new JLabel("Pick the number");
@@ -47,12 +48,13 @@ class Choice {
         JPanel mainPanelChoice = new JPanel();
 
         //Setting their layouts.
-        panelChoice.setLayout(new GridLayout(Solver.gridSize, Solver.gridSize, 5, 5));
+        panelChoice.setLayout(new GridLayout(gridSize, gridSize, 5, 5));
         mainPanelChoice.setLayout(new BoxLayout(mainPanelChoice, BoxLayout.PAGE_AXIS));
 
         //The 2D array of buttons for each choice of number.
-        JButton[] numbers = new JButton[Solver.size * Solver.size];
-        for (int i = 1; i <= Solver.size; ++i) {
+        int size = buttons.length;
+        JButton[] numbers = new JButton[size + 1];
+        for (int i = 1; i <= size; ++i) {
             //Initialising all the buttons.
             numbers[i] = new JButton();
 
@@ -156,8 +158,8 @@ class Choice {
      * @param buttons the 2D array of buttons corresponding to the sudoku cells
      */
     static void enableButtons(JButton[][] buttons) {
-        for (int i = 0; i < Solver.size; ++i) {
-            for (int j = 0; j < Solver.size; ++j) {
+        for (int i = 0; i < buttons.length; ++i) {
+            for (int j = 0; j < buttons[i].length; ++j) {
                 buttons[i][j].setEnabled(true);
             }
         }
@@ -0,0 +1,57 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * A logical technique that the PropagationEngine tries once naked and hidden singles are exhausted.
+ * <br>Stages are tried in order of their cost, cheapest first; as soon as one removes a candidate the engine goes back to
+ * singles, so the expensive techniques only run when nothing cheaper helps.
+ * <br>Stages may keep scratch buffers, so an instance belongs to one engine.
+ */
+interface DeductionStage {
+    /**
+     * @return the name of the technique, e.g. "Naked pair".
+     */
+    String getName();
+
+    /**
+     * @return a rough estimate of how expensive the technique is, both to run and for a human to spot; lower runs first.
+     */
+    int getCost();
+
+    /**
+     * Looks for one application of the technique and removes the candidates it rules out.
+     *
+     * @param engine the engine whose candidates are examined.
+     * @return true if at least one candidate was removed.
+     */
+    boolean apply(PropagationEngine engine);
+
+    /**
+     * Returns the stages a search uses by default.
+     * <br>Only the locked candidate stages pay for themselves when the engine may guess: they cut the backtracks of
+     * 16x16 grids by about 40 times, while subsets and fish remove few guesses on 9x9 grids and cost more than the guesses they save.
+     *
+     * @return a new instance of the pointing and box-line reduction stages.
+     */
+    static DeductionStage[] forSearch() {
+        return new DeductionStage[]{
+                new LockedCandidates(true),
+                new LockedCandidates(false)
+        };
+    }
+
+    /**
+     * @return a new instance of every built-in stage, in order of cost.
+     */
+    static DeductionStage[] standard() {
+        return new DeductionStage[]{
+                new LockedCandidates(true),
+                new LockedCandidates(false),
+                new NakedSubset(2),
+                new HiddenSubset(2),
+                new NakedSubset(3),
+                new HiddenSubset(3),
+                new Fish(2),
+                new Fish(3)
+        };
+    }
+}
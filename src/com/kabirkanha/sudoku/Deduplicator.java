@@ -0,0 +1,373 @@
+package com.kabirkanha.sudoku;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class removes the puzzles of a stream that are the same as an earlier one up to the standard symmetries, keeping
+ * the first puzzle of every class in input order.
+ * <br>The input is cut into chunks as in ParallelBatchSolver. Every worker thread keeps its own Canonicalizer and turns
+ * each 9x9 puzzle of a chunk into a 64-bit fingerprint of its canonical form, and formats its output line; the calling
+ * thread then looks the fingerprints up chunk by chunk, in order, and writes the lines of those it has not seen.
+ * Only the fingerprints are remembered, 8 bytes each in an open addressing table, so tens of millions of puzzles fit in a
+ * few hundred megabytes; two different classes share a fingerprint with a negligible chance (about 3 in a million for
+ * ten million classes), in which case the later one is dropped.
+ * <br>Puzzles of other sizes and malformed ones have no canonical form; they are skipped and counted.
+ */
+final class Deduplicator {
+    /**
+     * The number of puzzles handed to a worker at once.
+     */
+    private static final int CHUNK_SIZE = 1024;
+
+    /**
+     * The number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * Whether the canonical form of a kept puzzle is written instead of the puzzle itself.
+     */
+    private final boolean canonical;
+
+    /**
+     * The fingerprints of the classes seen so far.
+     */
+    private final FingerprintSet seen = new FingerprintSet();
+
+    /**
+     * The number of puzzles read in the last run.
+     */
+    private long puzzles = 0;
+
+    /**
+     * The number of puzzles written in the last run.
+     */
+    private long kept = 0;
+
+    /**
+     * The number of puzzles skipped in the last run for having no canonical form.
+     */
+    private long skipped = 0;
+
+    /**
+     * The time spent in the last run, in nanoseconds.
+     */
+    private long elapsed = 0;
+
+    /**
+     * The working state of one worker thread.
+     */
+    private static final class Worker {
+        /**
+         * Computes the canonical forms.
+         */
+        final Canonicalizer canonicalizer = new Canonicalizer();
+
+        /**
+         * The puzzle being fingerprinted.
+         */
+        final int[] cells = new int[Canonicalizer.SIZE * Canonicalizer.SIZE];
+
+        /**
+         * Its canonical form.
+         */
+        final int[] form = new int[Canonicalizer.SIZE * Canonicalizer.SIZE];
+    }
+
+    /**
+     * The output of one chunk.
+     */
+    private static final class Chunk {
+        /**
+         * The output line of every puzzle with a fingerprint, one after another.
+         */
+        final StringBuilder text = new StringBuilder();
+
+        /**
+         * The fingerprint of every puzzle; 0 for a skipped one.
+         */
+        final long[] fingerprints;
+
+        /**
+         * The end in text of the line of every puzzle; a skipped one has an empty line.
+         */
+        final int[] ends;
+
+        /**
+         * Constructor for the Chunk class.
+         *
+         * @param puzzles the number of puzzles in the chunk.
+         */
+        Chunk(int puzzles) {
+            fingerprints = new long[puzzles];
+            ends = new int[puzzles];
+        }
+    }
+
+    /**
+     * Cuts the input into chunks.
+     */
+    private interface ChunkReader {
+        /**
+         * Reads the next chunk.
+         *
+         * @param workers the state of every worker thread.
+         * @return the task that fingerprints the chunk on a worker thread, or null at the end of the input.
+         * @throws IOException if reading fails.
+         */
+        Callable<Chunk> next(ThreadLocal<Worker> workers) throws IOException;
+    }
+
+    /**
+     * An open addressing hash set of fingerprints; 0 marks an empty slot, so no fingerprint is 0.
+     */
+    private static final class FingerprintSet {
+        /**
+         * The slots; their number is a power of two.
+         */
+        private long[] slots = new long[1 << 16];
+
+        /**
+         * The number of fingerprints in the set.
+         */
+        private int size = 0;
+
+        /**
+         * Adds a fingerprint.
+         *
+         * @param fingerprint the fingerprint, which is well mixed already; not 0.
+         * @return true if it was not in the set.
+         */
+        boolean add(long fingerprint) {
+            int mask = slots.length - 1;
+            int i = (int) fingerprint & mask;
+            while (slots[i] != 0) {
+                if (slots[i] == fingerprint)
+                    return false;
+                i = (i + 1) & mask;
+            }
+            slots[i] = fingerprint;
+            //Grow when three quarters full.
+            if (++size > slots.length / 4 * 3) {
+                long[] old = slots;
+                slots = new long[old.length * 2];
+                mask = slots.length - 1;
+                for (long key : old) {
+                    if (key != 0) {
+                        int slot = (int) key & mask;
+                        while (slots[slot] != 0) {
+                            slot = (slot + 1) & mask;
+                        }
+                        slots[slot] = key;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Constructor for the Deduplicator class.
+     *
+     * @param threads   the number of worker threads.
+     * @param canonical true to write the canonical form of every kept puzzle instead of the puzzle as given.
+     */
+    Deduplicator(int threads, boolean canonical) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Thread count must be positive");
+        this.threads = threads;
+        this.canonical = canonical;
+    }
+
+    /**
+     * Deduplicates a stream of puzzles.
+     *
+     * @param in  the puzzles.
+     * @param out receives the first puzzle of every class, one per line.
+     * @throws IOException if reading or writing fails.
+     */
+    void run(PuzzleReader in, Writer out) throws IOException {
+        run(workers -> {
+            //The cells of the 9x9 puzzles one after another, and which puzzles those are.
+            int cells = Canonicalizer.SIZE * Canonicalizer.SIZE;
+            byte[] values = new byte[CHUNK_SIZE * cells];
+            boolean[] valid = new boolean[CHUNK_SIZE];
+            int n = 0, used = 0;
+            int size;
+            while (n < CHUNK_SIZE && (size = in.next()) != PuzzleReader.END) {
+                valid[n] = size == Canonicalizer.SIZE;
+                if (valid[n]) {
+                    for (int cell : in.cells()) {
+                        values[used++] = (byte) cell;
+                    }
+                }
+                ++n;
+            }
+            if (n == 0)
+                return null;
+            int count = n;
+            return () -> fingerprintChunk(workers.get(), values, valid, count);
+        }, out);
+    }
+
+    /**
+     * Deduplicates the puzzles of a packed file.
+     *
+     * @param in  the puzzles.
+     * @param out receives the first puzzle of every class, one per line.
+     * @throws IOException if writing fails.
+     */
+    void run(PackedPuzzles in, Writer out) throws IOException {
+        long[] next = {0};
+        run(workers -> {
+            long first = next[0];
+            if (first == in.getCount())
+                return null;
+            int count = (int) Math.min(CHUNK_SIZE, in.getCount() - first);
+            next[0] += count;
+            return () -> fingerprintChunk(workers.get(), in, first, count);
+        }, out);
+    }
+
+    /**
+     * Deduplicates every chunk of an input, in order.
+     *
+     * @param in  cuts the input into chunks.
+     * @param out receives the first puzzle of every class, one per line.
+     * @throws IOException if reading or writing fails.
+     */
+    private void run(ChunkReader in, Writer out) throws IOException {
+        ExecutorService pool = Executors.newWorkStealingPool(threads);
+        ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+        int window = threads * 4;
+        puzzles = 0;
+        kept = 0;
+        skipped = 0;
+        long start = System.nanoTime();
+
+        try {
+            Callable<Chunk> task;
+            while ((task = in.next(workers)) != null) {
+                pending.add(pool.submit(task));
+                if (pending.size() >= window)
+                    write(pending.poll(), out);
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), out);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while deduplicating");
+        } finally {
+            pool.shutdownNow();
+        }
+        out.flush();
+        elapsed = System.nanoTime() - start;
+    }
+
+    /**
+     * Fingerprints the puzzles of one chunk on the current worker thread.
+     *
+     * @param worker the worker's own state.
+     * @param values the cells of the 9x9 puzzles, one after another.
+     * @param valid  whether each puzzle is a 9x9 one.
+     * @param count  the number of puzzles in use.
+     * @return the output of the chunk.
+     */
+    private Chunk fingerprintChunk(Worker worker, byte[] values, boolean[] valid, int count) {
+        Chunk chunk = new Chunk(count);
+        int offset = 0;
+        for (int i = 0; i < count; ++i) {
+            if (valid[i]) {
+                for (int cell = 0; cell < worker.cells.length; ++cell) {
+                    worker.cells[cell] = values[offset + cell];
+                }
+                offset += worker.cells.length;
+                chunk.fingerprints[i] = fingerprint(worker, chunk.text);
+            }
+            chunk.ends[i] = chunk.text.length();
+        }
+        return chunk;
+    }
+
+    /**
+     * Fingerprints a range of the puzzles of a packed file on the current worker thread.
+     *
+     * @param worker the worker's own state.
+     * @param in     the puzzles.
+     * @param first  the index of the first puzzle of the chunk.
+     * @param count  the number of puzzles in the chunk.
+     * @return the output of the chunk.
+     */
+    private Chunk fingerprintChunk(Worker worker, PackedPuzzles in, long first, int count) {
+        Chunk chunk = new Chunk(count);
+        PackedPuzzles.View view = in.view();
+        for (int i = 0; i < count; ++i) {
+            if (in.getSize() == Canonicalizer.SIZE && view.moveTo(first + i).copyTo(worker.cells))
+                chunk.fingerprints[i] = fingerprint(worker, chunk.text);
+            chunk.ends[i] = chunk.text.length();
+        }
+        return chunk;
+    }
+
+    /**
+     * Fingerprints the puzzle in the worker's grid and appends its output line.
+     *
+     * @param worker the worker's own state.
+     * @param text   receives the line.
+     * @return the fingerprint of the canonical form; never 0.
+     */
+    private long fingerprint(Worker worker, StringBuilder text) {
+        worker.canonicalizer.canonicalize(worker.cells, worker.form);
+        PuzzleFormat.appendLine(canonical ? worker.form : worker.cells, text);
+        text.append('\n');
+        long fingerprint = Canonicalizer.fingerprint(worker.form);
+        return fingerprint != 0 ? fingerprint : 1;
+    }
+
+    /**
+     * Waits for a chunk and writes the lines of the puzzles of classes not seen before.
+     *
+     * @param future the chunk.
+     * @param out    the output.
+     * @throws IOException          if writing fails or the chunk failed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private void write(Future<Chunk> future, Writer out) throws IOException, InterruptedException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Deduplicating failed", e.getCause());
+        }
+        int start = 0;
+        for (int i = 0; i < chunk.fingerprints.length; ++i) {
+            if (chunk.fingerprints[i] == 0) {
+                ++skipped;
+            } else if (seen.add(chunk.fingerprints[i])) {
+                out.append(chunk.text, start, chunk.ends[i]);
+                ++kept;
+            }
+            start = chunk.ends[i];
+        }
+        puzzles += chunk.fingerprints.length;
+    }
+
+    /**
+     * @return a one-line summary of the last run.
+     */
+    String summary() {
+        double seconds = elapsed / 1e9;
+        return String.format("Kept %d of %d puzzles (%d duplicates, %d skipped) in %.3f s (%.0f puzzles/s on %d threads)",
+                kept, puzzles, puzzles - kept - skipped, skipped, seconds, seconds > 0 ? puzzles / seconds : 0.0, threads);
+    }
+}
@@ -0,0 +1,348 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * This class solves a sudoku as an exact cover problem, using Knuth's Algorithm X with Dancing Links.
+ * <br>Every (cell, value) pair is a row of the matrix; the columns are the four constraints "cell filled",
+ * "value in row", "value in column" and "value in sub-grid", the last three laid out as (unit, value) pairs of the Topology.
+ * <br>The links live in preallocated int arrays and the search keeps its levels on an explicit stack, so a solve does not allocate.
+ */
+public class DlxEngine implements Engine {
+    /**
+     * The size of the whole grid.
+     */
+    private final int size;
+
+    /**
+     * The shared table of the units of every cell; see Topology.
+     */
+    private final int[] cellUnits;
+
+    /**
+     * The number of cells in the grid.
+     */
+    private final int cells;
+
+    /**
+     * The number of constraint columns; node 0 is the root and nodes 1 to columns are the column headers.
+     */
+    private final int columns;
+
+    /**
+     * The number of matrix rows, one per (cell, value) pair.
+     */
+    private final int rows;
+
+    /**
+     * Links to the left neighbour of each node.
+     */
+    private final int[] left;
+
+    /**
+     * Links to the right neighbour of each node.
+     */
+    private final int[] right;
+
+    /**
+     * Links to the node above each node.
+     */
+    private final int[] up;
+
+    /**
+     * Links to the node below each node.
+     */
+    private final int[] down;
+
+    /**
+     * The column header of each node.
+     */
+    private final int[] column;
+
+    /**
+     * The number of nodes left in each column.
+     */
+    private final int[] columnSize;
+
+    /**
+     * Whether each column has been covered by a given.
+     */
+    private final boolean[] coveredByGiven;
+
+    /**
+     * The column chosen at each search level.
+     */
+    private final int[] stackColumn;
+
+    /**
+     * The row node being tried at each search level.
+     */
+    private final int[] stackRow;
+
+    /**
+     * The number of search nodes the search may visit before the solve is aborted.
+     */
+    private long maxNodes = Long.MAX_VALUE;
+
+    /**
+     * The number of backtracks of the current search.
+     */
+    private int backtrackCnt = 0;
+
+    /**
+     * The number of search nodes visited in the current search.
+     */
+    private long nodeCnt = 0;
+
+    /**
+     * The number of rows tried at columns with a choice of rows in the current search.
+     */
+    private long guessCnt = 0;
+
+    /**
+     * The number of solutions found so far in the current search.
+     */
+    private int solutionCnt = 0;
+
+    /**
+     * The current search level; the rows on the stack below it make up the partial solution.
+     */
+    private int depth = 0;
+
+    /**
+     * Constructor for the DlxEngine class; solves 9x9 grids.
+     */
+    public DlxEngine() {
+        this(PropagationEngine.DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor for the DlxEngine class.
+     *
+     * @param size the size of the whole grid, e.g. 9, 16 or 25; must be a perfect square.
+     */
+    public DlxEngine(int size) {
+        this.size = size;
+        this.cellUnits = Topology.of(size).cellUnits;
+        this.cells = size * size;
+        this.columns = 4 * cells;
+        this.rows = cells * size;
+        int nodes = 1 + columns + 4 * rows;
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        down = new int[nodes];
+        column = new int[nodes];
+        columnSize = new int[1 + columns];
+        coveredByGiven = new boolean[1 + columns];
+        stackColumn = new int[cells];
+        stackRow = new int[cells];
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public void setMaxNodes(long maxNodes) {
+        if (maxNodes < 1)
+            throw new IllegalArgumentException("Max nodes must be positive");
+        this.maxNodes = maxNodes;
+    }
+
+    @Override
+    public SolveResult solve(int[] givens) {
+        long start = System.nanoTime();
+        SolveResult.Status status = search(givens, 1);
+        if (status != SolveResult.Status.SOLVED)
+            return new SolveResult(status, null, SolveStats.ofSearch(nodeCnt, guessCnt, backtrackCnt, System.nanoTime() - start));
+
+        int[] solution = new int[cells];
+        System.arraycopy(givens, 0, solution, 0, cells);
+        for (int level = 0; level < depth; ++level) {
+            int row = (stackRow[level] - columns - 1) / 4;
+            solution[row / size] = row % size + 1;
+        }
+        return new SolveResult(SolveResult.Status.SOLVED, solution, SolveStats.ofSearch(nodeCnt, guessCnt, backtrackCnt, System.nanoTime() - start));
+    }
+
+    @Override
+    public int countSolutions(int[] givens, int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("Limit must be positive");
+        if (search(givens, limit) == SolveResult.Status.ABORTED)
+            return -1;
+        return solutionCnt;
+    }
+
+    /**
+     * Runs Algorithm X on a puzzle.
+     * <br>Solutions are counted in solutionCnt; the search goes on past a solution until the limit is reached.
+     *
+     * @param givens the grid in row-major order; 0 marks an empty cell.
+     * @param limit  the number of solutions to stop at.
+     * @return SOLVED if the limit was reached, with the rows of the last solution on the stack; INVALID if the search ran out of options first; ABORTED if it hit the node limit.
+     */
+    private SolveResult.Status search(int[] givens, int limit) {
+        if (givens.length != cells)
+            throw new IllegalArgumentException("Expected " + cells + " cells, got " + givens.length);
+        buildMatrix();
+        backtrackCnt = 0;
+        nodeCnt = 0;
+        guessCnt = 0;
+        solutionCnt = 0;
+        depth = 0;
+
+        //Cover the constraints satisfied by the givens; two givens fighting over one constraint make the puzzle invalid.
+        for (int cell = 0; cell < cells; ++cell) {
+            int value = givens[cell];
+            if (value < 0 || value > size)
+                throw new IllegalArgumentException("Invalid value " + value + " at cell (" + (cell / size + 1) + "," + (cell % size + 1) + ")");
+            if (value != 0) {
+                int first = firstNode(cell * size + value - 1);
+                for (int k = 0; k < 4; ++k) {
+                    int c = column[first + k];
+                    if (coveredByGiven[c])
+                        return SolveResult.Status.INVALID;
+                    coveredByGiven[c] = true;
+                    cover(c);
+                }
+            }
+        }
+
+        boolean descend = true;
+        while (true) {
+            if (descend) {
+                //All constraints satisfied.
+                if (right[0] == 0) {
+                    if (++solutionCnt >= limit)
+                        return SolveResult.Status.SOLVED;
+                    //Keep counting; carry on as if the last row had failed.
+                    if (depth == 0)
+                        return SolveResult.Status.INVALID;
+                    --depth;
+                    descend = false;
+                    continue;
+                }
+                if (++nodeCnt > maxNodes)
+                    return SolveResult.Status.ABORTED;
+
+                //Branch on the column with the fewest rows left.
+                int c = right[0];
+                for (int j = right[c]; j != 0; j = right[j]) {
+                    if (columnSize[j] < columnSize[c])
+                        c = j;
+                }
+                cover(c);
+                stackColumn[depth] = c;
+                stackRow[depth] = down[c];
+            } else {
+                //Take back the row tried at this level and move on to the next one.
+                int r = stackRow[depth];
+                for (int j = left[r]; j != r; j = left[j]) {
+                    uncover(column[j]);
+                }
+                stackRow[depth] = down[r];
+            }
+
+            int c = stackColumn[depth];
+            int r = stackRow[depth];
+            if (r == c) {
+                //No rows left in this column.
+                uncover(c);
+                if (depth == 0)
+                    return SolveResult.Status.INVALID;
+                --depth;
+                ++backtrackCnt;
+                descend = false;
+            } else {
+                for (int j = right[r]; j != r; j = right[j]) {
+                    cover(column[j]);
+                }
+                //A column with a single row left is a forced move, not a guess.
+                if (columnSize[c] > 1)
+                    ++guessCnt;
+                ++depth;
+                descend = true;
+            }
+        }
+    }
+
+    /**
+     * Links up the full exact cover matrix.
+     */
+    private void buildMatrix() {
+        //Column headers in a circular list around the root.
+        for (int c = 0; c <= columns; ++c) {
+            left[c] = c - 1;
+            right[c] = c + 1;
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+            columnSize[c] = 0;
+            coveredByGiven[c] = false;
+        }
+        left[0] = columns;
+        right[columns] = 0;
+
+        //Four nodes per row, appended to the bottom of their columns.
+        for (int row = 0; row < rows; ++row) {
+            int cell = row / size;
+            int value = row % size;
+            int first = firstNode(row);
+            for (int k = 0; k < 4; ++k) {
+                int node = first + k;
+                int c = 1 + (k == 0 ? cell : cells + cellUnits[cell * 3 + k - 1] * size + value);
+                column[node] = c;
+                up[node] = up[c];
+                down[node] = c;
+                down[up[c]] = node;
+                up[c] = node;
+                columnSize[c]++;
+                left[node] = first + (k + 3) % 4;
+                right[node] = first + (k + 1) % 4;
+            }
+        }
+    }
+
+    /**
+     * @param row the matrix row, i.e. cell * size + (value - 1).
+     * @return the index of the first of the row's four nodes.
+     */
+    private int firstNode(int row) {
+        return 1 + columns + 4 * row;
+    }
+
+    /**
+     * Removes a column and every row that intersects it from the matrix.
+     *
+     * @param c the column header.
+     */
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                columnSize[column[j]]--;
+            }
+        }
+    }
+
+    /**
+     * Puts back a column removed by cover(); must be called in the reverse order of the covers.
+     *
+     * @param c the column header.
+     */
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                columnSize[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+}
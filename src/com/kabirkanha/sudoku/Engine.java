@@ -0,0 +1,47 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * A headless sudoku solving engine.
+ * <br>Implementations keep their working state in the instance, so one instance must not be shared between threads.
+ */
+public interface Engine {
+    /**
+     * Solves a sudoku.
+     *
+     * @param givens the grid in row-major order; 0 marks an empty cell.
+     * @return the result of the solve.
+     */
+    SolveResult solve(int[] givens);
+
+    /**
+     * @return the size of the grids this engine solves, e.g. 9 for a 9x9 grid.
+     */
+    int getSize();
+
+    /**
+     * Counts the solutions of a sudoku, stopping as soon as the limit is reached.
+     * <br>A limit of 2 is enough to tell whether a puzzle has exactly one solution.
+     *
+     * @param givens the grid in row-major order; 0 marks an empty cell.
+     * @param limit  the count at which to stop; at least 1.
+     * @return the number of solutions, at most limit; -1 if the search hit its node limit first.
+     */
+    int countSolutions(int[] givens, int limit);
+
+    /**
+     * Checks whether a sudoku has exactly one solution.
+     *
+     * @param givens the grid in row-major order; 0 marks an empty cell.
+     * @return true if there is exactly one solution.
+     */
+    default boolean isUnique(int[] givens) {
+        return countSolutions(givens, 2) == 1;
+    }
+
+    /**
+     * Limits the number of search nodes a solve may visit; longer searches are aborted.
+     *
+     * @param maxNodes the maximum number of nodes.
+     */
+    void setMaxNodes(long maxNodes);
+}
@@ -0,0 +1,63 @@
+package com.kabirkanha.sudoku;
+
+import java.util.Locale;
+
+/**
+ * The solving engines that can be chosen at runtime.
+ */
+public enum EngineType {
+    /**
+     * Constraint Propagation with backtracking; see PropagationEngine.
+     */
+    PROPAGATION,
+    /**
+     * Knuth's Algorithm X on an exact cover matrix using Dancing Links; see DlxEngine.
+     */
+    DLX,
+    /**
+     * Constraint Propagation with the top guess levels searched in parallel; see ParallelSearch.
+     */
+    PARALLEL;
+
+    /**
+     * Creates a new engine of this type for 9x9 grids.
+     *
+     * @return the engine.
+     */
+    public Engine create() {
+        return create(PropagationEngine.DEFAULT_SIZE);
+    }
+
+    /**
+     * Creates a new engine of this type.
+     *
+     * @param size the size of the whole grid, e.g. 9, 16 or 25.
+     * @return the engine.
+     */
+    public Engine create(int size) {
+        switch (this) {
+            case DLX:
+                return new DlxEngine(size);
+            case PARALLEL:
+                return new ParallelSearch(size);
+            case PROPAGATION:
+            default:
+                return new PropagationEngine(size);
+        }
+    }
+
+    /**
+     * Looks up an engine type by its name, ignoring case.
+     *
+     * @param name the name, e.g. "dlx".
+     * @return the engine type.
+     * @throws IllegalArgumentException if there is no engine with that name.
+     */
+    public static EngineType fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown engine '" + name + "'; expected one of propagation, dlx, parallel");
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * Finds X-Wings and Swordfish: n rows in which a value can only go in the same n columns (or the other way round).
+ * <br>The value has to take one place in each of those columns within those rows, so it can be removed from the rest of the columns.
+ */
+final class Fish implements DeductionStage {
+    /**
+     * The number of lines in the fish; 2 for an X-Wing, 3 for a Swordfish.
+     */
+    private final int n;
+
+    /**
+     * The lines in which the value can go in 2 to n places.
+     */
+    private int[] lines = new int[0];
+
+    /**
+     * The places of the value in each of those lines, as a bitmask of positions across the line.
+     */
+    private long[] places = new long[0];
+
+    /**
+     * The number of entries in lines.
+     */
+    private int lineCnt = 0;
+
+    /**
+     * Constructor for the Fish class.
+     *
+     * @param n the number of lines; 2 for an X-Wing, 3 for a Swordfish.
+     */
+    Fish(int n) {
+        this.n = n;
+    }
+
+    @Override
+    public String getName() {
+        return n == 2 ? "X-Wing" : (n == 3 ? "Swordfish" : "Fish of " + n);
+    }
+
+    @Override
+    public int getCost() {
+        return 20 * n;
+    }
+
+    @Override
+    public boolean apply(PropagationEngine engine) {
+        Topology topology = engine.topology();
+        int size = topology.size;
+        if (lines.length < size) {
+            lines = new int[size];
+            places = new long[size];
+        }
+
+        for (int value = 1; value <= size; ++value) {
+            long bit = CandidateStore.bit(value);
+            //Rows as the base lines and columns as the cover, then the other way round.
+            for (int base = 0; base <= size; base += size) {
+                lineCnt = 0;
+                for (int line = 0; line < size; ++line) {
+                    long where = 0;
+                    for (int k = 0; k < size; ++k) {
+                        if ((engine.candidates(topology.units[(base + line) * size + k]) & bit) != 0)
+                            where |= 1L << k;
+                    }
+                    int cnt = Long.bitCount(where);
+                    if (cnt >= 2 && cnt <= n) {
+                        lines[lineCnt] = line;
+                        places[lineCnt++] = where;
+                    }
+                }
+                if (lineCnt >= n && find(engine, topology, size - base, bit, 0, 0, 0, 0))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tries every combination of base lines whose places fit in n cover lines.
+     *
+     * @param engine   the engine whose candidates are examined.
+     * @param topology the layout of the grid.
+     * @param cover    the unit index of the first cover line; position k of a base line lies in cover line k.
+     * @param bit      the candidate being examined.
+     * @param start    the first position of lines that may still be picked.
+     * @param depth    the number of lines picked so far.
+     * @param union    the places of the lines picked so far.
+     * @param picked   the base lines picked so far, as a bitmask of line indices.
+     * @return true if a fish was found and removed at least one candidate.
+     */
+    private boolean find(PropagationEngine engine, Topology topology, int cover, long bit, int start, int depth, long union, long picked) {
+        if (depth == n) {
+            //Position k of a cover line lies in base line k.
+            int size = topology.size;
+            boolean progress = false;
+            for (long covers = union; covers != 0; covers &= covers - 1) {
+                int unit = cover + Long.numberOfTrailingZeros(covers);
+                for (int k = 0; k < size; ++k) {
+                    if ((picked & (1L << k)) == 0)
+                        progress |= engine.eliminate(topology.units[unit * size + k], bit);
+                }
+            }
+            return progress;
+        }
+        for (int i = start; i <= lineCnt - (n - depth); ++i) {
+            long next = union | places[i];
+            if (Long.bitCount(next) <= n && find(engine, topology, cover, bit, i + 1, depth + 1, next, picked | (1L << lines[i])))
+                return true;
+        }
+        return false;
+    }
+}
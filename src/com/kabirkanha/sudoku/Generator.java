@@ -0,0 +1,289 @@
+package com.kabirkanha.sudoku;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class generates puzzles with exactly one solution.
+ * <br>A random full grid is made by filling the sub-grids on the diagonal at random (they share no row or column),
+ * letting the engine complete the grid, and then shuffling values, rows, columns, bands and stacks.
+ * Givens are then removed in random order; a removal is kept only if the puzzle stays unique and no harder than asked for.
+ * <br>Below EXTREME, a puzzle that logic alone solves is unique by construction, so the check is a logic-only grade;
+ * for EXTREME the solutions are counted instead and the finished puzzle must need a guess.
+ * <br>A generator keeps its own engines, so one instance must not be shared between threads.
+ */
+public class Generator {
+    /**
+     * The fewest givens the GUI accepts for 9x9 and larger grids, so no puzzle is generated with fewer.
+     */
+    static final int MIN_CLUES = 16;
+
+    /**
+     * The size of the whole grid.
+     */
+    private final int size;
+
+    /**
+     * The size of one sub-grid.
+     */
+    private final int gridSize;
+
+    /**
+     * The number of cells in the grid.
+     */
+    private final int cells;
+
+    /**
+     * Completes the random diagonal into a full grid, and counts solutions for EXTREME puzzles.
+     */
+    private final PropagationEngine engine;
+
+    /**
+     * Grades puzzles without guessing.
+     */
+    private final Grader grader;
+
+    /**
+     * Solves with singles alone; settles most removals far more cheaply than a grade.
+     */
+    private final PropagationEngine singles;
+
+    /**
+     * The source of randomness.
+     */
+    private SplittableRandom random;
+
+    /**
+     * The number of full grids to try before giving up on a puzzle.
+     */
+    private int maxAttempts = 1000;
+
+    /**
+     * Scratch buffers for the grid, the puzzle, the removal order and permutations.
+     */
+    private final int[] grid, puzzle, order, perm;
+
+    /**
+     * Constructor for the Generator class.
+     *
+     * @param size the size of the whole grid, e.g. 9, 16 or 25.
+     * @param seed the seed of the random numbers; the same seed gives the same puzzles.
+     */
+    public Generator(int size, long seed) {
+        this.size = size;
+        this.gridSize = PropagationEngine.subGridSize(size);
+        this.cells = size * size;
+        engine = new PropagationEngine(size);
+        grader = new Grader(size);
+        grader.setMaxGuessDepth(0);
+        singles = new PropagationEngine(size);
+        singles.setStages();
+        random = new SplittableRandom(seed);
+        grid = new int[cells];
+        puzzle = new int[cells];
+        order = new int[cells];
+        perm = new int[size + 1];
+    }
+
+    /**
+     * Restarts the random numbers from a new seed.
+     *
+     * @param seed the seed.
+     */
+    public void setSeed(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Sets how many full grids are tried before generate() gives up.
+     *
+     * @param maxAttempts the number of grids; at least 1.
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        if (maxAttempts < 1)
+            throw new IllegalArgumentException("Max attempts must be positive");
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Generates a puzzle with exactly one solution and as few givens as it can (but at least minClues(size)).
+     *
+     * @param level the difficulty level the puzzle must have.
+     * @return the puzzle in row-major order, 0 marking an empty cell; null if no attempt had the level.
+     */
+    public int[] generate(Grade.Level level) {
+        return generate(level, minClues(size), false);
+    }
+
+    /**
+     * Generates a puzzle with exactly one solution.
+     *
+     * @param level    the difficulty level the puzzle must have.
+     * @param maxClues the most givens the puzzle may have; at least minClues(size). Removal stops once it is reached.
+     * @return the puzzle in row-major order, 0 marking an empty cell; null if no attempt met both targets.
+     */
+    public int[] generate(Grade.Level level, int maxClues) {
+        checkClues(size, maxClues);
+        return generate(level, maxClues, true);
+    }
+
+    /**
+     * Generates a puzzle with exactly one solution.
+     *
+     * @param level    the difficulty level the puzzle must have.
+     * @param maxClues the number of givens at which removal stops.
+     * @param strict   true if a puzzle with more givens than maxClues must be thrown away.
+     * @return the puzzle, or null if no attempt met the targets.
+     */
+    private int[] generate(Grade.Level level, int maxClues, boolean strict) {
+        for (int attempt = 0; attempt < maxAttempts; ++attempt) {
+            fillGrid();
+            System.arraycopy(grid, 0, puzzle, 0, cells);
+            for (int cell = 0; cell < cells; ++cell) {
+                order[cell] = cell;
+            }
+            shuffle(order, 0, cells);
+
+            //Take away givens while the puzzle stays unique and no harder than asked for.
+            int clues = cells;
+            for (int i = 0; i < cells && clues > maxClues; ++i) {
+                int cell = order[i];
+                puzzle[cell] = 0;
+                if (acceptable(level))
+                    --clues;
+                else
+                    puzzle[cell] = grid[cell];
+            }
+            if (strict && clues > maxClues)
+                continue;
+
+            Grade grade = grader.grade(puzzle);
+            Grade.Level actual = grade.getStatus() == SolveResult.Status.SOLVED ? grade.getLevel() : Grade.Level.EXTREME;
+            if (actual == level)
+                return puzzle.clone();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the fewest givens a puzzle may have, shared by the generator and the GUI (see Solver.checkIfEnough).
+     * <br>That is MIN_CLUES, except on 4x4 grids: they have only 16 cells and need as few as 4 givens, a quarter of them.
+     *
+     * @param size the size of the whole grid.
+     * @return the fewest givens.
+     */
+    static int minClues(int size) {
+        return Math.min(MIN_CLUES, size * size / 4);
+    }
+
+    /**
+     * Checks that a clue count can be asked for.
+     *
+     * @param size     the size of the whole grid.
+     * @param maxClues the most givens a puzzle may have.
+     * @throws IllegalArgumentException if the size is not supported or the count is out of range.
+     */
+    static void checkClues(int size, int maxClues) {
+        PropagationEngine.subGridSize(size);
+        int cells = size * size;
+        int min = minClues(size);
+        if (maxClues < min || maxClues > cells)
+            throw new IllegalArgumentException("Clue count must be between " + min + " and " + cells);
+    }
+
+    /**
+     * Checks whether the current puzzle may be kept.
+     *
+     * @param level the difficulty level asked for.
+     * @return true if the puzzle has exactly one solution and is no harder than the level.
+     */
+    private boolean acceptable(Grade.Level level) {
+        //A puzzle that singles solve is unique and EASY, so it passes at every level.
+        if (singles.propagate(puzzle) == SolveResult.Status.SOLVED)
+            return true;
+        if (level == Grade.Level.EXTREME)
+            return engine.countSolutions(puzzle, 2) == 1;
+        Grade grade = grader.grade(puzzle);
+        return grade.getStatus() == SolveResult.Status.SOLVED && grade.getLevel().compareTo(level) <= 0;
+    }
+
+    /**
+     * Fills grid with a random full grid.
+     */
+    private void fillGrid() {
+        while (true) {
+            Arrays.fill(grid, 0);
+            for (int box = 0; box < gridSize; ++box) {
+                randomPermutation();
+                for (int k = 0; k < size; ++k) {
+                    grid[(box * gridSize + k / gridSize) * size + box * gridSize + k % gridSize] = perm[k + 1];
+                }
+            }
+            SolveResult result = engine.solve(grid);
+            if (result.isSolved()) {
+                System.arraycopy(result.getSolution(), 0, grid, 0, cells);
+                break;
+            }
+        }
+
+        //The engine always tries the lowest candidate first, so shuffle away its bias.
+        randomPermutation();
+        for (int cell = 0; cell < cells; ++cell) {
+            grid[cell] = perm[grid[cell]];
+        }
+        int[] rows = shuffledLines();
+        int[] cols = shuffledLines();
+        int[] shuffled = puzzle;
+        for (int i = 0; i < size; ++i) {
+            for (int j = 0; j < size; ++j) {
+                shuffled[i * size + j] = grid[rows[i] * size + cols[j]];
+            }
+        }
+        System.arraycopy(shuffled, 0, grid, 0, cells);
+    }
+
+    /**
+     * @return a random order of the rows (or columns) that keeps every band together: the bands are shuffled, and so are the lines within each band.
+     */
+    private int[] shuffledLines() {
+        int[] bands = new int[gridSize];
+        for (int b = 0; b < gridSize; ++b) {
+            bands[b] = b;
+        }
+        shuffle(bands, 0, gridSize);
+        int[] lines = new int[size];
+        for (int b = 0; b < gridSize; ++b) {
+            for (int k = 0; k < gridSize; ++k) {
+                lines[b * gridSize + k] = bands[b] * gridSize + k;
+            }
+            shuffle(lines, b * gridSize, gridSize);
+        }
+        return lines;
+    }
+
+    /**
+     * Fills perm[1..size] with a random permutation of 1 to size.
+     */
+    private void randomPermutation() {
+        for (int v = 1; v <= size; ++v) {
+            perm[v] = v;
+        }
+        shuffle(perm, 1, size);
+    }
+
+    /**
+     * Shuffles part of an array (Fisher-Yates).
+     *
+     * @param a     the array.
+     * @param from  the first index to shuffle.
+     * @param count the number of entries to shuffle.
+     */
+    private void shuffle(int[] a, int from, int count) {
+        for (int i = count - 1; i > 0; --i) {
+            int j = random.nextInt(i + 1);
+            int t = a[from + i];
+            a[from + i] = a[from + j];
+            a[from + j] = t;
+        }
+    }
+}
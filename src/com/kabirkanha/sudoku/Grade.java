@@ -0,0 +1,180 @@
+package com.kabirkanha.sudoku;
+
+import java.util.Locale;
+
+/**
+ * This class holds the difficulty grade of a puzzle: the techniques its solve needed and the rating derived from them.
+ */
+public final class Grade {
+    /**
+     * Coarse difficulty levels, from the hardest technique a solve needed.
+     */
+    public enum Level {
+        /**
+         * Singles are enough.
+         */
+        EASY,
+        /**
+         * Needs pointing or box-line reduction.
+         */
+        MEDIUM,
+        /**
+         * Needs naked or hidden pairs or triples.
+         */
+        HARD,
+        /**
+         * Needs an X-Wing or a Swordfish.
+         */
+        EXPERT,
+        /**
+         * Cannot be solved without guessing.
+         */
+        EXTREME
+    }
+
+    /**
+     * The outcome of the solve.
+     */
+    private final SolveResult.Status status;
+
+    /**
+     * The numeric rating; higher is harder.
+     */
+    private final int rating;
+
+    /**
+     * The names of the techniques used, in order of cost.
+     */
+    private final String[] techniques;
+
+    /**
+     * How often each technique was used, in the same order as techniques.
+     */
+    private final int[] uses;
+
+    /**
+     * The number of guesses made.
+     */
+    private final int guesses;
+
+    /**
+     * The deepest level of nested guesses reached.
+     */
+    private final int guessDepth;
+
+    /**
+     * Constructor for the Grade class.
+     *
+     * @param status     the outcome of the solve.
+     * @param rating     the numeric rating.
+     * @param techniques the names of the techniques used.
+     * @param uses       how often each technique was used.
+     * @param guesses    the number of guesses made.
+     * @param guessDepth the deepest level of nested guesses reached.
+     */
+    Grade(SolveResult.Status status, int rating, String[] techniques, int[] uses, int guesses, int guessDepth) {
+        this.status = status;
+        this.rating = rating;
+        this.techniques = techniques;
+        this.uses = uses;
+        this.guesses = guesses;
+        this.guessDepth = guessDepth;
+    }
+
+    /**
+     * Parses a level name.
+     *
+     * @param name the name, e.g. "hard"; case does not matter.
+     * @return the level.
+     * @throws IllegalArgumentException if there is no such level.
+     */
+    static Level levelOf(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown level '" + name + "'; expected one of easy, medium, hard, expert, extreme");
+        }
+    }
+
+    /**
+     * @return the outcome of the solve; the other values only describe a puzzle if it is SOLVED.
+     */
+    public SolveResult.Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the numeric rating: the cost of the hardest technique used, plus 100 for every level of nested guesses.
+     */
+    public int getRating() {
+        return rating;
+    }
+
+    /**
+     * @return the coarse difficulty level.
+     */
+    public Level getLevel() {
+        if (guesses > 0)
+            return Level.EXTREME;
+        if (rating <= Grader.SINGLES_COST)
+            return Level.EASY;
+        if (rating <= Grader.LOCKED_COST)
+            return Level.MEDIUM;
+        if (rating <= Grader.SUBSET_COST)
+            return Level.HARD;
+        return Level.EXPERT;
+    }
+
+    /**
+     * @return the number of techniques used.
+     */
+    public int getTechniqueCount() {
+        return techniques.length;
+    }
+
+    /**
+     * @param i the index of the technique, from 0 to getTechniqueCount() - 1.
+     * @return the name of the technique.
+     */
+    public String getTechnique(int i) {
+        return techniques[i];
+    }
+
+    /**
+     * @param i the index of the technique, from 0 to getTechniqueCount() - 1.
+     * @return how often the technique was used on the way to the solution; branches abandoned after a wrong guess do not count.
+     */
+    public int getUses(int i) {
+        return uses[i];
+    }
+
+    /**
+     * @return the number of guesses made.
+     */
+    public int getGuesses() {
+        return guesses;
+    }
+
+    /**
+     * @return the deepest level of nested guesses reached; 0 if the puzzle was solved by logic alone.
+     */
+    public int getGuessDepth() {
+        return guessDepth;
+    }
+
+    /**
+     * Appends the grade in the batch output format: rating, level and the techniques with their counts, separated by tabs.
+     *
+     * @param out the builder to append to.
+     */
+    void appendTo(StringBuilder out) {
+        out.append(rating).append('\t').append(getLevel()).append('\t');
+        for (int i = 0; i < techniques.length; ++i) {
+            if (i > 0)
+                out.append(',');
+            out.append(techniques[i]).append('=').append(uses[i]);
+        }
+        if (guesses > 0)
+            out.append(techniques.length > 0 ? "," : "").append("Guess=").append(guesses).append(",Guess depth=").append(guessDepth);
+    }
+}
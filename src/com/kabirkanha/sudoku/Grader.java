@@ -0,0 +1,237 @@
+package com.kabirkanha.sudoku;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class grades the difficulty of puzzles by solving them the way a person would.
+ * <br>The solve uses every deduction stage, cheapest first, and only guesses when none of them helps; the grade records
+ * which techniques were needed, how often, and how deep the guesses went. The rating is the cost of the hardest technique
+ * used, plus a large penalty per level of nested guesses.
+ * <br>Only the techniques used on the path to the solution count: what a branch used is forgotten when its guess fails,
+ * so the rating does not depend on which wrong guesses the search happened to try.
+ * <br>A grader keeps its own engine, so one instance must not be shared between threads.
+ */
+public class Grader {
+    /**
+     * The cost of a hidden single; easier to spot than a naked one.
+     */
+    static final int HIDDEN_SINGLE_COST = 1;
+
+    /**
+     * The cost of a naked single.
+     */
+    static final int NAKED_SINGLE_COST = 2;
+
+    /**
+     * The highest rating of a puzzle that singles alone can solve.
+     */
+    static final int SINGLES_COST = NAKED_SINGLE_COST;
+
+    /**
+     * The highest rating of a puzzle that needs at most locked candidates.
+     */
+    static final int LOCKED_COST = 15;
+
+    /**
+     * The highest rating of a puzzle that needs at most pairs and triples.
+     */
+    static final int SUBSET_COST = 35;
+
+    /**
+     * The rating added per level of nested guesses.
+     */
+    static final int GUESS_COST = 100;
+
+    /**
+     * The engine that does the solving.
+     */
+    private final PropagationEngine engine;
+
+    /**
+     * The names of all techniques, in order of cost.
+     */
+    private final String[] names;
+
+    /**
+     * The cost of each technique.
+     */
+    private final int[] costs;
+
+    /**
+     * How often each technique was used on the current search path of the current solve.
+     */
+    private final int[] uses;
+
+    /**
+     * The uses as they were before every open guess, one block of uses.length per level of nesting; restored when the
+     * guessed branch fails, so that the grade only counts the path to the solution.
+     */
+    private int[] saved = new int[0];
+
+    /**
+     * The number of guesses made in the current solve.
+     */
+    private int guesses = 0;
+
+    /**
+     * The current level of nested guesses.
+     */
+    private int depth = 0;
+
+    /**
+     * The deepest level of nested guesses reached in the current solve.
+     */
+    private int maxDepth = 0;
+
+    /**
+     * Constructor for the Grader class; grades 9x9 grids.
+     */
+    public Grader() {
+        this(PropagationEngine.DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor for the Grader class.
+     *
+     * @param size the size of the whole grid, e.g. 9, 16 or 25.
+     */
+    public Grader(int size) {
+        engine = new PropagationEngine(size);
+        DeductionStage[] stages = DeductionStage.standard();
+        engine.setStages(stages);
+
+        names = new String[stages.length + 2];
+        costs = new int[stages.length + 2];
+        uses = new int[stages.length + 2];
+        names[0] = PropagationEngine.HIDDEN_SINGLE;
+        costs[0] = HIDDEN_SINGLE_COST;
+        names[1] = PropagationEngine.NAKED_SINGLE;
+        costs[1] = NAKED_SINGLE_COST;
+        for (int i = 0; i < stages.length; ++i) {
+            names[i + 2] = stages[i].getName();
+            costs[i + 2] = stages[i].getCost();
+        }
+
+        engine.setListener(new SolveListener() {
+            @Override
+            public void stepped(PropagationEngine engine) {
+                //Do nothing
+            }
+
+            @Override
+            public void deduced(PropagationEngine engine, String technique) {
+                uses[indexOf(technique)]++;
+            }
+
+            @Override
+            public void guessed(PropagationEngine engine, int row, int col, boolean corrected) {
+                ++guesses;
+                if (corrected) {
+                    //The previous candidate failed; forget what its branch used.
+                    System.arraycopy(saved, (depth - 1) * uses.length, uses, 0, uses.length);
+                    return;
+                }
+                if ((depth + 1) * uses.length > saved.length)
+                    saved = Arrays.copyOf(saved, Math.max(saved.length * 2, (depth + 1) * uses.length));
+                System.arraycopy(uses, 0, saved, depth * uses.length, uses.length);
+                if (++depth > maxDepth)
+                    maxDepth = depth;
+            }
+
+            @Override
+            public void backtracked() {
+                --depth;
+                System.arraycopy(saved, depth * uses.length, uses, 0, uses.length);
+            }
+        });
+    }
+
+    /**
+     * @return the size of the grids this grader handles.
+     */
+    public int getSize() {
+        return engine.getSize();
+    }
+
+    /**
+     * Limits the number of search nodes a grade may visit; longer solves are aborted.
+     *
+     * @param maxNodes the maximum number of nodes.
+     */
+    public void setMaxNodes(long maxNodes) {
+        engine.setMaxNodes(maxNodes);
+    }
+
+    /**
+     * Limits how deep the guesses of a grade may be nested; a grade that needs deeper guesses is ABORTED.
+     * <br>With 0 only puzzles that logic alone can solve are graded, which is much faster for everything else.
+     *
+     * @param maxDepth the maximum number of nested guesses.
+     */
+    public void setMaxGuessDepth(int maxDepth) {
+        engine.setMaxDepth(maxDepth);
+    }
+
+    /**
+     * Makes grades stop early once a flag is raised; a stopped grade is ABORTED.
+     *
+     * @param stop the flag to watch, or null to never stop early.
+     */
+    void setStopFlag(AtomicBoolean stop) {
+        engine.setStopFlag(stop);
+    }
+
+    /**
+     * Grades a puzzle.
+     *
+     * @param givens the grid in row-major order; 0 marks an empty cell.
+     * @return the grade.
+     */
+    public Grade grade(int[] givens) {
+        for (int i = 0; i < uses.length; ++i) {
+            uses[i] = 0;
+        }
+        guesses = 0;
+        depth = 0;
+        maxDepth = 0;
+        SolveResult result = engine.solve(givens);
+
+        int used = 0;
+        int hardest = 0;
+        for (int i = 0; i < uses.length; ++i) {
+            if (uses[i] > 0) {
+                ++used;
+                hardest = Math.max(hardest, costs[i]);
+            }
+        }
+        String[] techniques = new String[used];
+        int[] counts = new int[used];
+        for (int i = 0, j = 0; i < uses.length; ++i) {
+            if (uses[i] > 0) {
+                techniques[j] = names[i];
+                counts[j++] = uses[i];
+            }
+        }
+        return new Grade(result.getStatus(), hardest + GUESS_COST * maxDepth, techniques, counts, guesses, maxDepth);
+    }
+
+    /**
+     * Finds a technique by name.
+     *
+     * @param technique the name reported by the engine.
+     * @return its index in names.
+     */
+    private int indexOf(String technique) {
+        //The engine reports the very same strings, so identity usually matches at once.
+        for (int i = 0; i < names.length; ++i) {
+            if (names[i] == technique)
+                return i;
+        }
+        for (int i = 0; i < names.length; ++i) {
+            if (names[i].equals(technique))
+                return i;
+        }
+        throw new IllegalStateException("Unknown technique " + technique);
+    }
+}
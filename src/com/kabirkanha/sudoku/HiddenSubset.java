@@ -0,0 +1,113 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * Finds hidden pairs and triples: n values that can only go in the same n cells of a unit.
+ * <br>Those cells have to hold those values, so every other candidate can be removed from them.
+ */
+final class HiddenSubset implements DeductionStage {
+    /**
+     * The number of values in the subset; 2 for pairs, 3 for triples.
+     */
+    private final int n;
+
+    /**
+     * The values of the unit that can go in 2 to n places.
+     */
+    private int[] values = new int[0];
+
+    /**
+     * The places of each value in the unit, as a bitmask of positions within the unit.
+     */
+    private long[] places = new long[0];
+
+    /**
+     * The number of entries in values.
+     */
+    private int valueCnt = 0;
+
+    /**
+     * The unit being examined.
+     */
+    private int unit = 0;
+
+    /**
+     * Constructor for the HiddenSubset class.
+     *
+     * @param n the number of values in the subset; 2 for pairs, 3 for triples.
+     */
+    HiddenSubset(int n) {
+        this.n = n;
+    }
+
+    @Override
+    public String getName() {
+        return n == 2 ? "Hidden pair" : (n == 3 ? "Hidden triple" : "Hidden subset of " + n);
+    }
+
+    @Override
+    public int getCost() {
+        return 10 * n + 5;
+    }
+
+    @Override
+    public boolean apply(PropagationEngine engine) {
+        Topology topology = engine.topology();
+        int size = topology.size;
+        if (values.length < size) {
+            values = new int[size];
+            places = new long[size];
+        }
+
+        for (unit = 0; unit < topology.unitCount; ++unit) {
+            for (int value = 0; value < size; ++value) {
+                places[value] = 0;
+            }
+            for (int k = 0; k < size; ++k) {
+                long mask = engine.candidates(topology.units[unit * size + k]);
+                while (mask != 0) {
+                    places[CandidateStore.valueOf(mask) - 1] |= 1L << k;
+                    mask &= mask - 1;
+                }
+            }
+
+            //Values with one place are hidden singles, which the engine handles itself.
+            valueCnt = 0;
+            for (int value = 0; value < size; ++value) {
+                int cnt = Long.bitCount(places[value]);
+                if (cnt >= 2 && cnt <= n)
+                    values[valueCnt++] = value;
+            }
+            if (valueCnt >= n && find(engine, topology, 0, 0, 0, 0))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tries every combination of values whose places fit in n cells.
+     *
+     * @param engine   the engine whose candidates are examined.
+     * @param topology the layout of the grid.
+     * @param start    the first position of values that may still be picked.
+     * @param depth    the number of values picked so far.
+     * @param union    the places of the values picked so far.
+     * @param picked   the values picked so far, as a candidate mask.
+     * @return true if a subset was found and removed at least one candidate.
+     */
+    private boolean find(PropagationEngine engine, Topology topology, int start, int depth, long union, long picked) {
+        if (depth == n) {
+            boolean progress = false;
+            for (long cells = union; cells != 0; cells &= cells - 1) {
+                int k = Long.numberOfTrailingZeros(cells);
+                progress |= engine.eliminate(topology.units[unit * topology.size + k], ~picked);
+            }
+            return progress;
+        }
+        for (int i = start; i <= valueCnt - (n - depth); ++i) {
+            long next = union | places[values[i]];
+            if (Long.bitCount(next) <= n && find(engine, topology, i + 1, depth + 1, next, picked | (1L << values[i])))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,356 @@
+package com.kabirkanha.sudoku;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class reads and writes the small JSON documents of the solve service, without any library.
+ * <br>Objects are read as LinkedHashMaps, arrays as ArrayLists, whole numbers as Longs (Doubles if too large), other
+ * numbers as Doubles, and true, false and null as Boolean.TRUE, Boolean.FALSE and null.
+ */
+final class Json {
+    /**
+     * The deepest nesting of objects and arrays read; deeper documents are rejected rather than overflowing the stack.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * The document being read.
+     */
+    private final String text;
+
+    /**
+     * The index of the next character to read.
+     */
+    private int pos = 0;
+
+    /**
+     * The current nesting of objects and arrays.
+     */
+    private int depth = 0;
+
+    /**
+     * Constructor for the Json class.
+     *
+     * @param text the document to read.
+     */
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Reads a document.
+     *
+     * @param text the document.
+     * @return its value.
+     * @throws IllegalArgumentException if the document is not valid JSON.
+     */
+    static Object parse(String text) {
+        Json reader = new Json(text);
+        Object value = reader.value();
+        reader.skipSpace();
+        if (reader.pos != text.length())
+            throw reader.error("unexpected text after the value");
+        return value;
+    }
+
+    /**
+     * Appends a string as a JSON string literal, escaping what needs it.
+     *
+     * @param value the string.
+     * @param out   the builder to append to.
+     */
+    static void quote(CharSequence value, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < value.length(); ++i) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (ch < 0x20)
+                        out.append(String.format("\\u%04x", (int) ch));
+                    else
+                        out.append(ch);
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Reads a value.
+     *
+     * @return the value.
+     */
+    private Object value() {
+        skipSpace();
+        if (pos == text.length())
+            throw error("unexpected end");
+        char ch = text.charAt(pos);
+        switch (ch) {
+            case '{':
+                return object();
+            case '[':
+                return array();
+            case '"':
+                return string();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            default:
+                if (ch == '-' || (ch >= '0' && ch <= '9'))
+                    return number();
+                throw error("unexpected character '" + ch + "'");
+        }
+    }
+
+    /**
+     * Reads an object.
+     *
+     * @return the members in document order.
+     */
+    private Map<String, Object> object() {
+        enter();
+        Map<String, Object> members = new LinkedHashMap<>();
+        ++pos;
+        skipSpace();
+        if (peek() == '}') {
+            ++pos;
+            --depth;
+            return members;
+        }
+        while (true) {
+            skipSpace();
+            if (peek() != '"')
+                throw error("expected a member name");
+            String name = string();
+            skipSpace();
+            expect(':');
+            members.put(name, value());
+            skipSpace();
+            if (peek() == ',') {
+                ++pos;
+            } else {
+                expect('}');
+                --depth;
+                return members;
+            }
+        }
+    }
+
+    /**
+     * Reads an array.
+     *
+     * @return the elements.
+     */
+    private List<Object> array() {
+        enter();
+        List<Object> elements = new ArrayList<>();
+        ++pos;
+        skipSpace();
+        if (peek() == ']') {
+            ++pos;
+            --depth;
+            return elements;
+        }
+        while (true) {
+            elements.add(value());
+            skipSpace();
+            if (peek() == ',') {
+                ++pos;
+            } else {
+                expect(']');
+                --depth;
+                return elements;
+            }
+        }
+    }
+
+    /**
+     * Reads a string literal.
+     *
+     * @return the string.
+     */
+    private String string() {
+        ++pos;
+        StringBuilder out = new StringBuilder();
+        while (true) {
+            if (pos == text.length())
+                throw error("unterminated string");
+            char ch = text.charAt(pos++);
+            if (ch == '"')
+                return out.toString();
+            if (ch < 0x20)
+                throw error("control character in string");
+            if (ch != '\\') {
+                out.append(ch);
+                continue;
+            }
+            if (pos == text.length())
+                throw error("unterminated string");
+            char escaped = text.charAt(pos++);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    out.append(escaped);
+                    break;
+                case 'b':
+                    out.append('\b');
+                    break;
+                case 'f':
+                    out.append('\f');
+                    break;
+                case 'n':
+                    out.append('\n');
+                    break;
+                case 'r':
+                    out.append('\r');
+                    break;
+                case 't':
+                    out.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > text.length())
+                        throw error("short unicode escape");
+                    try {
+                        out.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("bad unicode escape");
+                    }
+                    pos += 4;
+                    break;
+                default:
+                    throw error("bad escape '\\" + escaped + "'");
+            }
+        }
+    }
+
+    /**
+     * Reads a number.
+     *
+     * @return a Long for a whole number that fits, else a Double.
+     */
+    private Object number() {
+        int start = pos;
+        boolean whole = true;
+        if (peek() == '-')
+            ++pos;
+        if (!digits())
+            throw error("expected a digit");
+        if (peek() == '.') {
+            whole = false;
+            ++pos;
+            if (!digits())
+                throw error("expected a digit");
+        }
+        if (peek() == 'e' || peek() == 'E') {
+            whole = false;
+            ++pos;
+            if (peek() == '+' || peek() == '-')
+                ++pos;
+            if (!digits())
+                throw error("expected a digit");
+        }
+        String number = text.substring(start, pos);
+        if (whole) {
+            try {
+                return Long.parseLong(number);
+            } catch (NumberFormatException e) {
+                //Too large for a long.
+            }
+        }
+        return Double.parseDouble(number);
+    }
+
+    /**
+     * Skips a run of digits.
+     *
+     * @return false if there was none.
+     */
+    private boolean digits() {
+        int start = pos;
+        while (pos < text.length() && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+            ++pos;
+        }
+        return pos > start;
+    }
+
+    /**
+     * Reads a keyword.
+     *
+     * @param word  the keyword.
+     * @param value its value.
+     * @return the value.
+     */
+    private Object literal(String word, Object value) {
+        if (!text.startsWith(word, pos))
+            throw error("unexpected character '" + text.charAt(pos) + "'");
+        pos += word.length();
+        return value;
+    }
+
+    /**
+     * Goes one level deeper into objects and arrays.
+     */
+    private void enter() {
+        if (++depth > MAX_DEPTH)
+            throw error("nested too deeply");
+    }
+
+    /**
+     * Skips white space.
+     */
+    private void skipSpace() {
+        while (pos < text.length()) {
+            char ch = text.charAt(pos);
+            if (ch != ' ' && ch != '\t' && ch != '\n' && ch != '\r')
+                return;
+            ++pos;
+        }
+    }
+
+    /**
+     * @return the next character, or 0 at the end.
+     */
+    private char peek() {
+        return pos < text.length() ? text.charAt(pos) : 0;
+    }
+
+    /**
+     * Reads a given character.
+     *
+     * @param ch the character.
+     */
+    private void expect(char ch) {
+        if (peek() != ch)
+            throw error("expected '" + ch + "'");
+        ++pos;
+    }
+
+    /**
+     * @param message what is wrong.
+     * @return an exception that says what is wrong and where.
+     */
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid JSON at offset " + pos + ": " + message);
+    }
+}
@@ -0,0 +1,163 @@
+package com.kabirkanha.sudoku;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations that many threads can record into at once.
+ * <br>Durations up to 31 ns are counted exactly; above that every power of two is split into 16 buckets, so a reported
+ * percentile is at most about 6% above the true value. Durations beyond about 4.9 hours share the last bucket.
+ * <br>Recording never blocks: every bucket is a LongAdder, which spreads contended updates over several cells.
+ */
+final class LatencyHistogram {
+    /**
+     * The number of bits of a duration that pick the bucket within its power of two.
+     */
+    private static final int SUB_BITS = 4;
+
+    /**
+     * The number of buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /**
+     * Durations below this are counted exactly, one bucket each.
+     */
+    private static final int EXACT = 2 * SUB_BUCKETS;
+
+    /**
+     * The highest power of two that gets its own buckets.
+     */
+    private static final int MAX_EXPONENT = 44;
+
+    /**
+     * The counts of every bucket.
+     */
+    private final LongAdder[] buckets = new LongAdder[EXACT + (MAX_EXPONENT - SUB_BITS) * SUB_BUCKETS];
+
+    /**
+     * The sum of all durations.
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * The longest duration.
+     */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructor for the LatencyHistogram class.
+     */
+    LatencyHistogram() {
+        for (int i = 0; i < buckets.length; ++i) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds; negative values count as 0.
+     */
+    void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        buckets[bucketOf(nanos)].increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Finds the bucket of a duration.
+     *
+     * @param nanos the duration, not negative.
+     * @return the index of the bucket.
+     */
+    private int bucketOf(long nanos) {
+        if (nanos < EXACT)
+            return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT)
+            return buckets.length - 1;
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT + (exponent - SUB_BITS - 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Finds the longest duration a bucket holds.
+     *
+     * @param bucket the index of the bucket.
+     * @return the upper bound of the bucket, in nanoseconds.
+     */
+    private long upperBound(int bucket) {
+        if (bucket < EXACT)
+            return bucket;
+        int exponent = (bucket - EXACT) / SUB_BUCKETS + SUB_BITS + 1;
+        long sub = (bucket - EXACT) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    /**
+     * @return the number of durations recorded.
+     */
+    long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return the mean duration in nanoseconds; 0 if nothing was recorded.
+     */
+    double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * @return the longest duration in nanoseconds; 0 if nothing was recorded.
+     */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Estimates a percentile.
+     * <br>Records made while this runs may or may not be included.
+     *
+     * @param percent the percentile, e.g. 99 or 99.9.
+     * @return the duration in nanoseconds that the given share of the durations do not exceed; 0 if nothing was recorded.
+     */
+    long percentile(double percent) {
+        long[] counts = new long[buckets.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(percent / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    }
+
+    /**
+     * Forgets every recorded duration.
+     * <br>Records made while this runs may be partly kept.
+     */
+    void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        sum.reset();
+        max.reset();
+    }
+}
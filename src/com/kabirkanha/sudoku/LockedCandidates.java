@@ -0,0 +1,130 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * Finds candidates locked into the intersection of a sub-grid and a row or column.
+ * <br>Pointing: if a value can only go in one row (or column) of a sub-grid, it can be removed from the rest of that row.
+ * <br>Box-line reduction: if a value can only go in one sub-grid within a row (or column), it can be removed from the rest of that sub-grid.
+ * <br>Each unit is split into its intersections (segments) with the crossing units, and all values are checked at once with bitmasks.
+ */
+final class LockedCandidates implements DeductionStage {
+    /**
+     * True for pointing, false for box-line reduction.
+     */
+    private final boolean pointing;
+
+    /**
+     * The candidates of each segment of the unit being examined.
+     */
+    private long[] segments = new long[0];
+
+    /**
+     * Constructor for the LockedCandidates class.
+     *
+     * @param pointing true to look inside sub-grids (pointing), false to look inside rows and columns (box-line reduction).
+     */
+    LockedCandidates(boolean pointing) {
+        this.pointing = pointing;
+    }
+
+    @Override
+    public String getName() {
+        return pointing ? "Pointing" : "Box-line reduction";
+    }
+
+    @Override
+    public int getCost() {
+        return pointing ? 10 : 15;
+    }
+
+    @Override
+    public boolean apply(PropagationEngine engine) {
+        Topology topology = engine.topology();
+        int size = topology.size;
+        if (segments.length < topology.gridSize)
+            segments = new long[topology.gridSize];
+
+        //Pointing splits the sub-grids by row and by column; box-line splits the rows and columns by sub-grid.
+        int from = pointing ? 2 * size : 0;
+        int to = pointing ? 3 * size : 2 * size;
+        for (int unit = from; unit < to; ++unit) {
+            if (pointing) {
+                if (check(engine, topology, unit, true) || check(engine, topology, unit, false))
+                    return true;
+            } else if (check(engine, topology, unit, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Looks for values of a unit that are confined to one of its segments, and removes them from the rest of the crossing unit.
+     * <br>Cells of rows and columns, and the rows of sub-grids, are listed so that position k lies in segment k / gridSize;
+     * the columns of sub-grids use k % gridSize instead.
+     *
+     * @param engine   the engine whose candidates are examined.
+     * @param topology the layout of the grid.
+     * @param unit     the unit to split.
+     * @param byRow    true to split by k / gridSize, false by k % gridSize.
+     * @return true if at least one candidate was removed.
+     */
+    private boolean check(PropagationEngine engine, Topology topology, int unit, boolean byRow) {
+        int size = topology.size;
+        int gridSize = topology.gridSize;
+        int[] units = topology.units;
+        long solved = 0;
+        for (int s = 0; s < gridSize; ++s) {
+            segments[s] = 0;
+        }
+        for (int k = 0; k < size; ++k) {
+            long mask = engine.candidates(units[unit * size + k]);
+            if ((mask & (mask - 1)) == 0)
+                solved |= mask;
+            else
+                segments[byRow ? k / gridSize : k % gridSize] |= mask;
+        }
+
+        //Values that occur in exactly one segment, leaving out the ones already placed in the unit.
+        long once = 0, more = 0;
+        for (int s = 0; s < gridSize; ++s) {
+            more |= once & segments[s];
+            once |= segments[s];
+        }
+        long locked = once & ~more & ~solved;
+        if (locked == 0)
+            return false;
+
+        boolean progress = false;
+        for (int s = 0; s < gridSize; ++s) {
+            long values = segments[s] & locked;
+            if (values == 0)
+                continue;
+            //The crossing unit is the one shared by the cells of the segment; any of them will do.
+            int cell = units[unit * size + (byRow ? s * gridSize : s)];
+            int kind = !pointing ? 2 : (byRow ? 0 : 1);
+            progress |= removeOutside(engine, topology, topology.cellUnits[cell * 3 + kind], unit, values);
+        }
+        return progress;
+    }
+
+    /**
+     * Removes candidates from the cells of one unit that are not in another.
+     *
+     * @param engine   the engine whose candidates are changed.
+     * @param topology the layout of the grid.
+     * @param target   the unit to remove the candidates from.
+     * @param keep     the unit whose cells keep them.
+     * @param mask     the candidates to remove.
+     * @return true if at least one candidate was removed.
+     */
+    private static boolean removeOutside(PropagationEngine engine, Topology topology, int target, int keep, long mask) {
+        boolean progress = false;
+        int size = topology.size;
+        for (int k = target * size; k < (target + 1) * size; ++k) {
+            int cell = topology.units[k];
+            if (!topology.contains(keep, cell))
+                progress |= engine.eliminate(cell, mask);
+        }
+        return progress;
+    }
+}
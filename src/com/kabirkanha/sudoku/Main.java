@@ -1,19 +1,352 @@
 package com.kabirkanha.sudoku;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * This class starts execution.
+ * <br>Without --batch the GUI is opened, for a 9x9 grid unless --size says otherwise; with --batch the puzzles in a file are solved headlessly,
+ * with --generate new puzzles are written, with --dedupe repeated puzzles are removed from a file, and with --serve puzzles are solved
+ * over HTTP.
  *
  * @author Kabir Kanha Arora
  */
 
 public class Main {
+    /**
+     * How to call the program.
+     */
+    private static final String USAGE = "Usage: java -jar Sudoku.jar [--size <n>] [--log off|summary|step|full] [--fps <n>] | [--batch <puzzles.txt|puzzles.sdkp> [--out <solutions.txt>] [--engine propagation|dlx|parallel] [--threads <n>] [--unordered] [--grade] [--cache <n>]] | [--pack <puzzles.txt> --out <puzzles.sdkp>] | [--dedupe <puzzles.txt|puzzles.sdkp> [--out <unique.txt>] [--threads <n>] [--canonical]] | [--serve [<host>:]<port> [--threads <n>] [--timeout <ms>] [--cache <n>]] | [--generate <count> [--size <n>] [--level easy|medium|hard|expert|extreme] [--clues <n>] [--seed <n>] [--out <puzzles.txt>] [--threads <n>]]";
+
     /**
      * The 'main' method for the game.
      *
      * @param args the command line arguments.
      */
     public static void main(String[] args) {
-        //Start the game.
-        new Solver();
+        if (args.length == 0) {
+            //Start the game.
+            new Solver();
+            return;
+        }
+
+        int size = PropagationEngine.DEFAULT_SIZE;
+        String batch = null;
+        String pack = null;
+        String dedupe = null;
+        boolean canonical = false;
+        String serve = null;
+        long timeout = 10000;
+        String out = null;
+        EngineType engine = EngineType.PROPAGATION;
+        int threads = 1;
+        boolean ordered = true;
+        boolean grading = false;
+        int cacheSize = 0;
+        long generate = -1;
+        Grade.Level level = Grade.Level.MEDIUM;
+        int clues = -1;
+        SolveLog.Level logLevel = SolveLog.Level.FULL;
+        int fps = 0;
+        long seed = System.nanoTime();
+        try {
+            for (int i = 0; i < args.length; ++i) {
+                switch (args[i]) {
+                    case "--size":
+                        size = Integer.parseInt(value(args, ++i));
+                        PropagationEngine.subGridSize(size);
+                        break;
+                    case "--batch":
+                        batch = value(args, ++i);
+                        break;
+                    case "--pack":
+                        pack = value(args, ++i);
+                        break;
+                    case "--dedupe":
+                        dedupe = value(args, ++i);
+                        break;
+                    case "--canonical":
+                        canonical = true;
+                        break;
+                    case "--serve":
+                        serve = value(args, ++i);
+                        break;
+                    case "--timeout":
+                        timeout = Long.parseLong(value(args, ++i));
+                        if (timeout < 1)
+                            throw new IllegalArgumentException("--timeout must be positive");
+                        break;
+                    case "--out":
+                        out = value(args, ++i);
+                        break;
+                    case "--engine":
+                        engine = EngineType.fromName(value(args, ++i));
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value(args, ++i));
+                        //0 means one thread per core.
+                        if (threads == 0)
+                            threads = Runtime.getRuntime().availableProcessors();
+                        if (threads < 0)
+                            throw new IllegalArgumentException("--threads must not be negative");
+                        break;
+                    case "--unordered":
+                        ordered = false;
+                        break;
+                    case "--grade":
+                        grading = true;
+                        break;
+                    case "--cache":
+                        cacheSize = Integer.parseInt(value(args, ++i));
+                        if (cacheSize < 0)
+                            throw new IllegalArgumentException("--cache must not be negative");
+                        break;
+                    case "--generate":
+                        generate = Long.parseLong(value(args, ++i));
+                        if (generate < 0)
+                            throw new IllegalArgumentException("--generate must not be negative");
+                        break;
+                    case "--level":
+                        level = Grade.levelOf(value(args, ++i));
+                        break;
+                    case "--clues":
+                        clues = Integer.parseInt(value(args, ++i));
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value(args, ++i));
+                        break;
+                    case "--log":
+                        logLevel = SolveLog.levelOf(value(args, ++i));
+                        break;
+                    case "--fps":
+                        fps = Integer.parseInt(value(args, ++i));
+                        if (fps < 0 || fps > 1000)
+                            throw new IllegalArgumentException("--fps must be between 0 and 1000");
+                        break;
+                    case "--help":
+                        System.out.println(USAGE);
+                        return;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        if (generate >= 0) {
+            generate(size, level, clues, generate, seed, threads, out);
+            return;
+        }
+
+        if (pack != null) {
+            pack(pack, out);
+            return;
+        }
+
+        if (dedupe != null) {
+            dedupe(dedupe, out, threads, canonical);
+            return;
+        }
+
+        if (serve != null) {
+            serve(serve, threads, timeout, cacheSize);
+            return;
+        }
+
+        if (batch == null) {
+            //Start the game.
+            new Solver(size, logLevel, fps);
+            return;
+        }
+
+        try (Writer writer = out == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII))
+                : Files.newBufferedWriter(Paths.get(out), StandardCharsets.US_ASCII)) {
+            Path path = Paths.get(batch);
+            SolutionCache cache = cacheSize > 0 ? new SolutionCache(cacheSize) : null;
+            if (PackedPuzzles.isPacked(path)) {
+                try (PackedPuzzles in = PackedPuzzles.open(path)) {
+                    if (threads == 1) {
+                        BatchSolver solver = new BatchSolver(engine, grading, cache);
+                        solver.run(in, writer);
+                        System.err.println(solver.summary());
+                    } else {
+                        ParallelBatchSolver solver = new ParallelBatchSolver(engine, threads, ordered, grading, cache);
+                        solver.run(in, writer);
+                        System.err.println(solver.summary());
+                    }
+                }
+            } else {
+                try (PuzzleReader in = PuzzleReader.open(path)) {
+                    if (threads == 1) {
+                        BatchSolver solver = new BatchSolver(engine, grading, cache);
+                        solver.run(in, writer);
+                        System.err.println(solver.summary());
+                    } else {
+                        ParallelBatchSolver solver = new ParallelBatchSolver(engine, threads, ordered, grading, cache);
+                        solver.run(in, writer);
+                        System.err.println(solver.summary());
+                    }
+                }
+            }
+            System.err.println(SolverMetrics.global().summary());
+            if (cache != null)
+                System.err.println(cache.summary());
+        } catch (IOException e) {
+            System.err.println("Batch failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Converts a file of text puzzles to the packed binary format.
+     * <br>The first well-formed puzzle sets the grid size; malformed puzzles and puzzles of other sizes are skipped and counted.
+     *
+     * @param in  the text puzzles.
+     * @param out the packed file.
+     */
+    private static void pack(String in, String out) {
+        if (out == null) {
+            System.err.println("--pack needs --out");
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        long skipped = 0;
+        PackedPuzzleWriter writer = null;
+        try (PuzzleReader reader = PuzzleReader.open(Paths.get(in))) {
+            int size;
+            while ((size = reader.next()) != PuzzleReader.END) {
+                if (writer == null && size > 0)
+                    writer = new PackedPuzzleWriter(Paths.get(out), size);
+                if (writer != null && size == writer.getSize())
+                    writer.write(reader.cells());
+                else
+                    ++skipped;
+            }
+            if (writer == null)
+                writer = new PackedPuzzleWriter(Paths.get(out), PropagationEngine.DEFAULT_SIZE);
+            writer.close();
+            System.err.println(String.format("Packed %d %dx%d puzzles, skipped %d", writer.getCount(), writer.getSize(), writer.getSize(), skipped));
+        } catch (IOException e) {
+            System.err.println("Packing failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes the first puzzle of every class of equivalent 9x9 puzzles in a file, one per line.
+     *
+     * @param in        the puzzles, as text or packed.
+     * @param out       the output file, or null for standard output.
+     * @param threads   the number of worker threads.
+     * @param canonical true to write the canonical forms instead of the puzzles as given.
+     */
+    private static void dedupe(String in, String out, int threads, boolean canonical) {
+        Deduplicator deduplicator = new Deduplicator(threads, canonical);
+        try (Writer writer = out == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII))
+                : Files.newBufferedWriter(Paths.get(out), StandardCharsets.US_ASCII)) {
+            Path path = Paths.get(in);
+            if (PackedPuzzles.isPacked(path)) {
+                try (PackedPuzzles puzzles = PackedPuzzles.open(path)) {
+                    deduplicator.run(puzzles, writer);
+                }
+            } else {
+                try (PuzzleReader puzzles = PuzzleReader.open(path)) {
+                    deduplicator.run(puzzles, writer);
+                }
+            }
+            System.err.println(deduplicator.summary());
+        } catch (IOException e) {
+            System.err.println("Deduplicating failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Runs the HTTP solve service until the process is stopped.
+     *
+     * @param address     the port to listen on, optionally preceded by a host and a colon; all interfaces without one.
+     * @param concurrency the number of requests allowed to solve at once.
+     * @param timeout     the time a request may take, in milliseconds.
+     * @param cacheSize   the number of puzzles the solution cache keeps; 0 for no cache.
+     */
+    private static void serve(String address, int concurrency, long timeout, int cacheSize) {
+        SolveService service;
+        try {
+            int colon = address.lastIndexOf(':');
+            int port = Integer.parseInt(address.substring(colon + 1));
+            InetSocketAddress socket = colon < 0 ? new InetSocketAddress(port) : new InetSocketAddress(address.substring(0, colon), port);
+            service = new SolveService(socket, concurrency, timeout, cacheSize > 0 ? new SolutionCache(cacheSize) : null);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        } catch (IOException e) {
+            System.err.println("Serving failed: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+        service.start();
+        System.err.println("Listening on " + service.getAddress() + " with " + concurrency + " solver(s), " + timeout + " ms timeout");
+    }
+
+    /**
+     * Generates puzzles and writes them one per line.
+     *
+     * @param size     the size of the whole grid.
+     * @param level    the difficulty level of the puzzles.
+     * @param maxClues the most givens a puzzle may have; -1 for as few as possible.
+     * @param count    the number of puzzles.
+     * @param seed     the base seed.
+     * @param threads  the number of worker threads.
+     * @param out      the output file, or null for standard output.
+     */
+    private static void generate(int size, Grade.Level level, int maxClues, long count, long seed, int threads, String out) {
+        BatchGenerator generator;
+        try {
+            generator = new BatchGenerator(size, level, maxClues, threads);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        try (Writer writer = out == null
+                ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII))
+                : Files.newBufferedWriter(Paths.get(out), StandardCharsets.US_ASCII)) {
+            generator.run(count, seed, writer);
+            System.err.println(generator.summary());
+        } catch (IOException e) {
+            System.err.println("Generating failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Returns the value that follows an option on the command line.
+     *
+     * @param args the command line arguments.
+     * @param i    the index of the value.
+     * @return the value.
+     */
+    private static String value(String[] args, int i) {
+        if (i >= args.length)
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        return args[i];
     }
 }
@@ -0,0 +1,89 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * Finds naked pairs and triples: n cells of a unit whose candidates together are only n values.
+ * <br>Those values have to go in those cells, so they can be removed from every other cell of the unit.
+ */
+final class NakedSubset implements DeductionStage {
+    /**
+     * The number of cells in the subset; 2 for pairs, 3 for triples.
+     */
+    private final int n;
+
+    /**
+     * The unconfirmed cells of the unit being examined.
+     */
+    private int[] open = new int[0];
+
+    /**
+     * The number of cells in open.
+     */
+    private int openCnt = 0;
+
+    /**
+     * Constructor for the NakedSubset class.
+     *
+     * @param n the number of cells in the subset; 2 for pairs, 3 for triples.
+     */
+    NakedSubset(int n) {
+        this.n = n;
+    }
+
+    @Override
+    public String getName() {
+        return n == 2 ? "Naked pair" : (n == 3 ? "Naked triple" : "Naked subset of " + n);
+    }
+
+    @Override
+    public int getCost() {
+        return 10 * n;
+    }
+
+    @Override
+    public boolean apply(PropagationEngine engine) {
+        Topology topology = engine.topology();
+        int size = topology.size;
+        if (open.length < size)
+            open = new int[size];
+
+        for (int unit = 0; unit < topology.unitCount; ++unit) {
+            openCnt = 0;
+            for (int k = unit * size; k < (unit + 1) * size; ++k) {
+                int cell = topology.units[k];
+                if (Long.bitCount(engine.candidates(cell)) > 1)
+                    open[openCnt++] = cell;
+            }
+            //With n or fewer open cells the subset would be the whole unit, which rules nothing out.
+            if (openCnt > n && find(engine, 0, 0, 0, 0))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Tries every combination of open cells whose candidates fit in n values.
+     *
+     * @param engine the engine whose candidates are examined.
+     * @param start  the first position of open that may still be picked.
+     * @param depth  the number of cells picked so far.
+     * @param union  the candidates of the cells picked so far.
+     * @param picked the positions in open of the cells picked so far.
+     * @return true if a subset was found and removed at least one candidate.
+     */
+    private boolean find(PropagationEngine engine, int start, int depth, long union, long picked) {
+        if (depth == n) {
+            boolean progress = false;
+            for (int i = 0; i < openCnt; ++i) {
+                if ((picked & (1L << i)) == 0)
+                    progress |= engine.eliminate(open[i], union);
+            }
+            return progress;
+        }
+        for (int i = start; i <= openCnt - (n - depth); ++i) {
+            long next = union | engine.candidates(open[i]);
+            if (Long.bitCount(next) <= n && find(engine, i + 1, depth + 1, next, picked | (1L << i)))
+                return true;
+        }
+        return false;
+    }
+}
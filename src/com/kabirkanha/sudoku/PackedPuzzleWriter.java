@@ -0,0 +1,157 @@
+package com.kabirkanha.sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class writes puzzles of one size to a file in the packed binary format; see PackedPuzzles for the layout.
+ * <br>Puzzles are packed into a buffer and written in large blocks. The count in the header is filled in by close(),
+ * so a file that was not closed reads as empty.
+ */
+final class PackedPuzzleWriter implements Closeable {
+    /**
+     * The size of the write buffer in bytes.
+     */
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * The file being written.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The size of the whole grid of every puzzle.
+     */
+    private final int size;
+
+    /**
+     * The number of bits each cell takes.
+     */
+    private final int bits;
+
+    /**
+     * Puzzles waiting to be written.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The number of puzzles written so far.
+     */
+    private long count = 0;
+
+    /**
+     * Constructor for the PackedPuzzleWriter class; creates or replaces the file and writes a header with no puzzles.
+     *
+     * @param path the file.
+     * @param size the size of the whole grid of every puzzle, e.g. 9 for a 9x9 grid.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if the size is not supported.
+     */
+    PackedPuzzleWriter(Path path, int size) throws IOException {
+        PropagationEngine.subGridSize(size);
+        this.size = size;
+        this.bits = PackedPuzzles.bitsPerCell(size);
+        int recordBytes = PackedPuzzles.recordBytes(size);
+        this.buffer = ByteBuffer.allocate(Math.max(BUFFER / recordBytes, 1) * recordBytes);
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            writeHeader();
+            channel.position(PackedPuzzles.HEADER);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the header with the current count at the start of the file, without moving the position of the channel.
+     *
+     * @throws IOException if writing fails.
+     */
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(PackedPuzzles.HEADER);
+        header.putInt(PackedPuzzles.MAGIC).put((byte) PackedPuzzles.VERSION).put((byte) size).put((byte) bits).put((byte) 0).putLong(count);
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    /**
+     * @return the size of the whole grid of every puzzle.
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of puzzles written so far.
+     */
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * Appends a puzzle.
+     *
+     * @param cells the grid in row-major order; 0 marks an empty cell.
+     * @throws IOException if writing fails.
+     * @throws IllegalArgumentException if the grid has the wrong number of cells or a value out of range.
+     */
+    void write(int[] cells) throws IOException {
+        if (cells.length != size * size)
+            throw new IllegalArgumentException("Expected " + size * size + " cells, got " + cells.length);
+        for (int cell = 0; cell < cells.length; ++cell) {
+            if (cells[cell] < 0 || cells[cell] > size)
+                throw new IllegalArgumentException("Value " + cells[cell] + " out of range at cell " + (cell + 1));
+        }
+        if (!buffer.hasRemaining())
+            flush();
+        int acc = 0, have = 0;
+        for (int value : cells) {
+            acc = (acc << bits) | value;
+            have += bits;
+            if (have >= 8) {
+                have -= 8;
+                buffer.put((byte) (acc >>> have));
+            }
+        }
+        //Pad the last byte with zeros.
+        if (have > 0)
+            buffer.put((byte) (acc << (8 - have)));
+        ++count;
+    }
+
+    /**
+     * Writes the buffered puzzles to the file.
+     *
+     * @throws IOException if writing fails.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes the remaining puzzles and the final count, and closes the file.
+     *
+     * @throws IOException if writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            writeHeader();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.kabirkanha.sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads a file of puzzles in the packed binary format, which PackedPuzzleWriter writes.
+ * <br>The file starts with a header of 16 bytes: the magic "SDKP", the format version, the grid size, the bits per cell,
+ * a zero byte and the number of puzzles as a big-endian long. Then come the puzzles, all the same size, each packed
+ * into a fixed number of bytes: the value of every cell in row-major order (0 for an empty cell) takes as few bits as
+ * the largest value needs, most significant bit first, and the last byte is padded with zeros.
+ * A 9x9 puzzle takes 4 bits per cell, so 41 bytes instead of the 82 of a text line.
+ * <br>The file is memory-mapped when opened and never copied; puzzles are unpacked straight from the mapping into the
+ * caller's grid through a View. Any number of views can read one file from different threads at once.
+ */
+final class PackedPuzzles implements Closeable {
+    /**
+     * The first four bytes of every packed file: "SDKP".
+     */
+    static final int MAGIC = 0x53444B50;
+
+    /**
+     * The version of the format that this class reads and PackedPuzzleWriter writes.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The length of the header in bytes.
+     */
+    static final int HEADER = 16;
+
+    /**
+     * The most bytes mapped as one buffer; every buffer holds whole puzzles.
+     */
+    private static final int WINDOW = 1 << 30;
+
+    /**
+     * The open file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The size of the whole grid of every puzzle.
+     */
+    private final int size;
+
+    /**
+     * The number of bits each cell takes.
+     */
+    private final int bits;
+
+    /**
+     * The number of bytes each puzzle takes.
+     */
+    private final int recordBytes;
+
+    /**
+     * The number of puzzles in the file.
+     */
+    private final long count;
+
+    /**
+     * The number of puzzles in every mapped buffer.
+     */
+    private final int perWindow;
+
+    /**
+     * The mapped puzzles, perWindow to a buffer; only ever read with absolute gets, so they can be shared.
+     */
+    private final MappedByteBuffer[] windows;
+
+    /**
+     * Constructor for the PackedPuzzles class; reads the header and maps the puzzles.
+     *
+     * @param channel the open file.
+     * @throws IOException if the file is not in the packed format or cannot be mapped.
+     */
+    private PackedPuzzles(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            //Keep reading until the header is complete or the file ends.
+        }
+        if (header.hasRemaining() || header.getInt(0) != MAGIC)
+            throw new IOException("Not a packed puzzle file");
+        if (header.get(4) != VERSION)
+            throw new IOException("Unsupported packed format version " + header.get(4));
+        size = header.get(5) & 0xFF;
+        bits = header.get(6);
+        count = header.getLong(8);
+        try {
+            PropagationEngine.subGridSize(size);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt packed puzzle header: " + e.getMessage());
+        }
+        if (bits != bitsPerCell(size) || count < 0)
+            throw new IOException("Corrupt packed puzzle header");
+        recordBytes = recordBytes(size);
+        if (count > (channel.size() - HEADER) / recordBytes)
+            throw new IOException("Packed puzzle file is truncated: expected " + count + " puzzles");
+
+        perWindow = WINDOW / recordBytes;
+        windows = new MappedByteBuffer[(int) ((count + perWindow - 1) / perWindow)];
+        for (int w = 0; w < windows.length; ++w) {
+            long first = (long) w * perWindow;
+            long puzzles = Math.min(perWindow, count - first);
+            windows[w] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + first * recordBytes, puzzles * recordBytes);
+        }
+    }
+
+    /**
+     * Opens a packed file.
+     *
+     * @param path the file.
+     * @return the puzzles of the file.
+     * @throws IOException if the file cannot be opened or is not in the packed format.
+     */
+    static PackedPuzzles open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new PackedPuzzles(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the magic of the packed format.
+     *
+     * @param path the file.
+     * @return true if the file looks packed; false for text or files shorter than the magic.
+     * @throws IOException if the file cannot be read.
+     */
+    static boolean isPacked(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                //Keep reading until the magic is complete or the file ends.
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * @param size the size of the whole grid.
+     * @return the number of bits a cell takes: enough for the largest value, e.g. 4 for 9x9 and 5 for 16x16.
+     */
+    static int bitsPerCell(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+
+    /**
+     * @param size the size of the whole grid.
+     * @return the number of bytes a puzzle takes, e.g. 41 for 9x9.
+     */
+    static int recordBytes(int size) {
+        return (size * size * bitsPerCell(size) + 7) / 8;
+    }
+
+    /**
+     * @return the size of the whole grid of every puzzle, e.g. 9 for a 9x9 grid.
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * @return the number of puzzles in the file.
+     */
+    long getCount() {
+        return count;
+    }
+
+    /**
+     * @return a new view of the puzzles, positioned before the first one.
+     */
+    View view() {
+        return new View();
+    }
+
+    /**
+     * A cursor over the puzzles of the file, reading them in place from the mapping.
+     * <br>A view is cheap and must not be shared between threads; create one per thread instead.
+     */
+    final class View {
+        /**
+         * The index of the puzzle the view is on; -1 before the first.
+         */
+        private long index = -1;
+
+        /**
+         * The buffer that holds the puzzle.
+         */
+        private ByteBuffer window;
+
+        /**
+         * The index in that buffer of the first byte of the puzzle.
+         */
+        private int offset;
+
+        /**
+         * Constructor for the View class.
+         */
+        private View() {
+        }
+
+        /**
+         * Moves to a puzzle.
+         *
+         * @param index the index of the puzzle, from 0 to getCount() - 1.
+         * @return this view.
+         * @throws IndexOutOfBoundsException if there is no such puzzle.
+         */
+        View moveTo(long index) {
+            if (index < 0 || index >= count)
+                throw new IndexOutOfBoundsException("Puzzle " + index + " of " + count);
+            this.index = index;
+            window = windows[(int) (index / perWindow)];
+            offset = (int) (index % perWindow) * recordBytes;
+            return this;
+        }
+
+        /**
+         * Moves to the next puzzle.
+         *
+         * @return false if there is none.
+         */
+        boolean next() {
+            if (index + 1 >= count)
+                return false;
+            moveTo(index + 1);
+            return true;
+        }
+
+        /**
+         * Unpacks the puzzle into a grid, e.g. the givens buffer of an engine.
+         *
+         * @param cells the array to fill in row-major order, of length getSize() * getSize().
+         * @return false if a value is larger than the grid size, i.e. the file is corrupt.
+         */
+        boolean copyTo(int[] cells) {
+            int mask = (1 << bits) - 1;
+            int acc = 0, have = 0;
+            int p = offset;
+            boolean valid = true;
+            for (int cell = 0; cell < cells.length; ++cell) {
+                if (have < bits) {
+                    acc = (acc << 8) | (window.get(p++) & 0xFF);
+                    have += 8;
+                }
+                have -= bits;
+                int value = (acc >>> have) & mask;
+                valid &= value <= size;
+                cells[cell] = value;
+            }
+            return valid;
+        }
+    }
+
+    /**
+     * Closes the file; the mapping stays valid until it is garbage collected, but views must not be used any more.
+     *
+     * @throws IOException if closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
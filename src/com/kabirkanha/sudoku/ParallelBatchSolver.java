@@ -0,0 +1,311 @@
+package com.kabirkanha.sudoku;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class solves a stream of puzzles on several threads.
+ * <br>Text puzzles are parsed on the calling thread into chunks of packed cell values and handed to a work-stealing
+ * pool; puzzles of a packed file are handed out as ranges of indexes, which the workers unpack from the mapping themselves. Engines are not thread-safe, so every worker thread
+ * keeps its own BatchSolver (and with it its own engine and buffers) for the whole run; nothing mutable is shared.
+ * <br>Only a bounded number of chunks is in flight at any time, so memory use does not grow with the input.
+ * The output is in input order unless unordered output is requested, which lets finished chunks be written straight away.
+ */
+final class ParallelBatchSolver {
+    /**
+     * The number of puzzles handed to a worker at once.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * The kind of engine each worker creates.
+     */
+    private final EngineType engineType;
+
+    /**
+     * Whether puzzles are graded instead of solved.
+     */
+    private final boolean grading;
+
+    /**
+     * The cache shared by the workers; null for none.
+     */
+    private final SolutionCache cache;
+
+    /**
+     * The number of worker threads.
+     */
+    private final int threads;
+
+    /**
+     * Whether the output must be in input order.
+     */
+    private final boolean ordered;
+
+    /**
+     * The number of puzzles read in the last run.
+     */
+    private long puzzles = 0;
+
+    /**
+     * The number of puzzles solved in the last run.
+     */
+    private long solved = 0;
+
+    /**
+     * The time spent in the last run, in nanoseconds.
+     */
+    private long elapsed = 0;
+
+    /**
+     * The output of one chunk.
+     */
+    private static final class Chunk {
+        /**
+         * The output lines of the chunk.
+         */
+        final StringBuilder text = new StringBuilder();
+
+        /**
+         * The number of puzzles in the chunk.
+         */
+        int puzzles = 0;
+
+        /**
+         * The number of puzzles of the chunk that were solved.
+         */
+        int solved = 0;
+    }
+
+    /**
+     * Cuts the input into chunks.
+     */
+    private interface ChunkReader {
+        /**
+         * Reads the next chunk.
+         *
+         * @param solvers the solver of every worker thread.
+         * @return the task that solves the chunk on a worker thread, or null at the end of the input.
+         * @throws IOException if reading fails.
+         */
+        Callable<Chunk> next(ThreadLocal<BatchSolver> solvers) throws IOException;
+    }
+
+    /**
+     * Constructor for the ParallelBatchSolver class.
+     *
+     * @param engineType the kind of engine each worker creates.
+     * @param threads    the number of worker threads.
+     * @param ordered    true to write the output in input order.
+     * @param grading    true to grade the puzzles instead of printing their solutions.
+     */
+    ParallelBatchSolver(EngineType engineType, int threads, boolean ordered, boolean grading) {
+        this(engineType, threads, ordered, grading, null);
+    }
+
+    /**
+     * Constructor for the ParallelBatchSolver class.
+     *
+     * @param engineType the kind of engine each worker creates.
+     * @param threads    the number of worker threads.
+     * @param ordered    true to write the output in input order.
+     * @param grading    true to grade the puzzles instead of printing their solutions.
+     * @param cache      the cache all workers look solved puzzles up in; null for none.
+     */
+    ParallelBatchSolver(EngineType engineType, int threads, boolean ordered, boolean grading, SolutionCache cache) {
+        if (threads < 1)
+            throw new IllegalArgumentException("Thread count must be positive");
+        this.engineType = engineType;
+        this.threads = threads;
+        this.ordered = ordered;
+        this.grading = grading;
+        this.cache = cache;
+    }
+
+    /**
+     * Solves every puzzle in a stream.
+     *
+     * @param in  the puzzles.
+     * @param out receives one line per puzzle.
+     * @throws IOException if reading or writing fails.
+     */
+    void run(PuzzleReader in, Writer out) throws IOException {
+        run(solvers -> {
+            //The sizes of the puzzles, and the cells of all well-formed ones one after another.
+            int[] sizes = new int[CHUNK_SIZE];
+            byte[] values = new byte[CHUNK_SIZE * 81];
+            int n = 0, used = 0;
+            int size;
+            while (n < CHUNK_SIZE && (size = in.next()) != PuzzleReader.END) {
+                sizes[n++] = size;
+                if (size == PuzzleReader.MALFORMED)
+                    continue;
+                int[] cells = in.cells();
+                if (used + cells.length > values.length)
+                    values = Arrays.copyOf(values, Math.max(2 * values.length, used + cells.length));
+                for (int cell : cells) {
+                    values[used++] = (byte) cell;
+                }
+            }
+            if (n == 0)
+                return null;
+            int count = n;
+            byte[] chunkValues = values;
+            return () -> solveChunk(solvers.get(), sizes, chunkValues, count);
+        }, out);
+    }
+
+    /**
+     * Solves every puzzle in a packed file.
+     *
+     * @param in  the puzzles.
+     * @param out receives one line per puzzle.
+     * @throws IOException if writing fails.
+     */
+    void run(PackedPuzzles in, Writer out) throws IOException {
+        long[] next = {0};
+        run(solvers -> {
+            long first = next[0];
+            if (first == in.getCount())
+                return null;
+            int count = (int) Math.min(CHUNK_SIZE, in.getCount() - first);
+            next[0] += count;
+            return () -> solveChunk(solvers.get(), in, first, count);
+        }, out);
+    }
+
+    /**
+     * Solves every chunk of an input.
+     *
+     * @param in  cuts the input into chunks.
+     * @param out receives one line per puzzle.
+     * @throws IOException if reading or writing fails.
+     */
+    private void run(ChunkReader in, Writer out) throws IOException {
+        ExecutorService pool = Executors.newWorkStealingPool(threads);
+        ThreadLocal<BatchSolver> solvers = ThreadLocal.withInitial(() -> new BatchSolver(engineType, grading, cache));
+        CompletionService<Chunk> completed = new ExecutorCompletionService<>(pool);
+        ArrayDeque<Future<Chunk>> pending = new ArrayDeque<>();
+        int window = threads * 4;
+        int inFlight = 0;
+        puzzles = 0;
+        solved = 0;
+        long start = System.nanoTime();
+
+        try {
+            Callable<Chunk> task;
+            while ((task = in.next(solvers)) != null) {
+                if (ordered)
+                    pending.add(pool.submit(task));
+                else
+                    completed.submit(task);
+
+                //Wait for the oldest (or any) chunk once enough are queued.
+                if (++inFlight >= window) {
+                    write(ordered ? pending.poll() : completed.take(), out);
+                    --inFlight;
+                }
+            }
+            while (inFlight > 0) {
+                write(ordered ? pending.poll() : completed.take(), out);
+                --inFlight;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while solving");
+        } finally {
+            pool.shutdownNow();
+        }
+        out.flush();
+        elapsed = System.nanoTime() - start;
+    }
+
+    /**
+     * Solves the puzzles of one chunk on the current worker thread.
+     *
+     * @param solver the worker's own solver.
+     * @param sizes  the size of every puzzle, or PuzzleReader.MALFORMED.
+     * @param values the cells of the well-formed puzzles, one after another.
+     * @param count  the number of puzzles in use.
+     * @return the output of the chunk.
+     */
+    private static Chunk solveChunk(BatchSolver solver, int[] sizes, byte[] values, int count) {
+        Chunk chunk = new Chunk();
+        chunk.puzzles = count;
+        int offset = 0;
+        for (int i = 0; i < count; ++i) {
+            int size = sizes[i];
+            int[] givens = null;
+            if (size > 0) {
+                if (size <= PuzzleFormat.MAX_LINE_SIZE) {
+                    givens = solver.givens(size);
+                    for (int cell = 0; cell < givens.length; ++cell) {
+                        givens[cell] = values[offset + cell];
+                    }
+                }
+                offset += size * size;
+            }
+            if (solver.solve(size, givens, chunk.text))
+                chunk.solved++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Solves a range of the puzzles of a packed file on the current worker thread.
+     *
+     * @param solver the worker's own solver.
+     * @param in     the puzzles.
+     * @param first  the index of the first puzzle of the chunk.
+     * @param count  the number of puzzles in the chunk.
+     * @return the output of the chunk.
+     */
+    private static Chunk solveChunk(BatchSolver solver, PackedPuzzles in, long first, int count) {
+        Chunk chunk = new Chunk();
+        chunk.puzzles = count;
+        PackedPuzzles.View view = in.view();
+        for (int i = 0; i < count; ++i) {
+            if (solver.solve(in.getSize(), view.moveTo(first + i), chunk.text))
+                chunk.solved++;
+        }
+        return chunk;
+    }
+
+    /**
+     * Waits for a chunk and writes its output.
+     *
+     * @param future the chunk.
+     * @param out    the output.
+     * @throws IOException          if writing fails or the chunk failed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    private void write(Future<Chunk> future, Writer out) throws IOException, InterruptedException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Solving failed", e.getCause());
+        }
+        puzzles += chunk.puzzles;
+        solved += chunk.solved;
+        out.append(chunk.text);
+    }
+
+    /**
+     * @return a one-line summary of the last run.
+     */
+    String summary() {
+        double seconds = elapsed / 1e9;
+        return String.format("Solved %d of %d puzzles in %.3f s (%.0f puzzles/s on %d threads)", solved, puzzles, seconds, seconds > 0 ? puzzles / seconds : 0.0, threads);
+    }
+}
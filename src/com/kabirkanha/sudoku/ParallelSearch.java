@@ -0,0 +1,336 @@
+package com.kabirkanha.sudoku;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This class solves a single puzzle on several threads by splitting the top levels of the search tree.
+ * <br>The puzzle is propagated, the cell with the fewest candidates is picked, and every candidate becomes a fork-join task
+ * with that value added to the givens. This repeats for the first few levels; below that each task runs an ordinary
+ * sequential PropagationEngine. As soon as enough solutions are found (one for a solve), all other tasks are cancelled.
+ * <br>Every worker thread keeps its own engine. One instance can be used by several threads at once, but each call
+ * to solve() shares the pool with every other call.
+ */
+public class ParallelSearch implements Engine {
+    /**
+     * The size of the whole grid.
+     */
+    private final int size;
+
+    /**
+     * The number of cells in the grid.
+     */
+    private final int cells;
+
+    /**
+     * The pool the search runs on.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The number of guess levels that are split into separate tasks.
+     */
+    private final int splitDepth;
+
+    /**
+     * One engine per worker thread.
+     */
+    private final ThreadLocal<PropagationEngine> engines;
+
+    /**
+     * The number of search nodes each sequential sub-search may visit.
+     */
+    private volatile long maxNodes = Long.MAX_VALUE;
+
+    /**
+     * The shared state of one call to solve().
+     */
+    private static final class Search {
+        /**
+         * The number of solutions to stop at; 1 for a plain solve.
+         */
+        final int limit;
+
+        /**
+         * Whether the search only counts solutions instead of keeping one.
+         */
+        final boolean counting;
+
+        /**
+         * Raised when enough solutions have been found; stops every other task.
+         */
+        final AtomicBoolean found = new AtomicBoolean();
+
+        /**
+         * The number of solutions found so far.
+         */
+        final AtomicInteger count = new AtomicInteger();
+
+        /**
+         * The solution, once found.
+         */
+        final AtomicReference<int[]> solution = new AtomicReference<>();
+
+        /**
+         * Whether any sub-search hit its node limit.
+         */
+        final AtomicBoolean aborted = new AtomicBoolean();
+
+        /**
+         * The totals of the search nodes, guesses, propagation passes and backtracks of every task; guarded by the Search.
+         */
+        private long nodes, guesses, passes, backtracks;
+
+        /**
+         * The names of the techniques of the engines; null until the first task reports.
+         */
+        private String[] techniques;
+
+        /**
+         * The total uses of each technique, in the same order as techniques; guarded by the Search.
+         */
+        private long[] uses;
+
+        /**
+         * Constructor for the Search class.
+         *
+         * @param limit    the number of solutions to stop at.
+         * @param counting whether the search only counts solutions.
+         */
+        Search(int limit, boolean counting) {
+            this.limit = limit;
+            this.counting = counting;
+        }
+
+        /**
+         * Records solutions found by a task, and stops the search once there are enough.
+         *
+         * @param solution a solution to keep, or null.
+         * @param n        the number of solutions found.
+         */
+        void record(int[] solution, int n) {
+            if (solution != null)
+                this.solution.compareAndSet(null, solution);
+            if (count.addAndGet(n) >= limit)
+                found.set(true);
+        }
+
+        /**
+         * Adds the statistics of a task to the totals.
+         *
+         * @param stats      the statistics of the task's engine.
+         * @param splitNodes the search nodes the task visited outside its engine.
+         * @param splits     the guesses the task made by forking.
+         */
+        synchronized void add(SolveStats stats, long splitNodes, long splits) {
+            nodes += stats.getNodes() + splitNodes;
+            guesses += stats.getGuesses() + splits;
+            passes += stats.getPropagationPasses();
+            backtracks += stats.getBacktracks();
+            if (techniques == null) {
+                techniques = new String[stats.getTechniqueCount()];
+                uses = new long[techniques.length];
+                for (int i = 0; i < techniques.length; ++i) {
+                    techniques[i] = stats.getTechnique(i);
+                }
+            }
+            //Every engine of a search is set up the same way, so the techniques line up.
+            for (int i = 0; i < uses.length; ++i) {
+                uses[i] += stats.getUses(i);
+            }
+        }
+
+        /**
+         * Sums up the statistics of the search.
+         *
+         * @param wallNanos the wall-clock time of the search, in nanoseconds.
+         * @return the statistics.
+         */
+        synchronized SolveStats stats(long wallNanos) {
+            int total = (int) Math.min(Integer.MAX_VALUE, backtracks);
+            if (techniques == null)
+                return SolveStats.ofSearch(nodes, guesses, total, wallNanos);
+            return new SolveStats(nodes, guesses, total, passes, techniques, uses.clone(), wallNanos);
+        }
+    }
+
+    /**
+     * Constructor for the ParallelSearch class; uses the common fork-join pool and splits the first two guess levels.
+     *
+     * @param size the size of the whole grid, e.g. 9, 16 or 25.
+     */
+    public ParallelSearch(int size) {
+        this(size, ForkJoinPool.commonPool(), 2);
+    }
+
+    /**
+     * Constructor for the ParallelSearch class.
+     *
+     * @param size       the size of the whole grid, e.g. 9, 16 or 25.
+     * @param pool       the pool to run the search on.
+     * @param splitDepth the number of guess levels to split into separate tasks.
+     */
+    public ParallelSearch(int size, ForkJoinPool pool, int splitDepth) {
+        PropagationEngine.subGridSize(size);
+        if (splitDepth < 0)
+            throw new IllegalArgumentException("Split depth must not be negative");
+        this.size = size;
+        this.cells = size * size;
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+        this.engines = ThreadLocal.withInitial(() -> new PropagationEngine(size));
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>The limit applies to each sequential sub-search separately.
+     */
+    @Override
+    public void setMaxNodes(long maxNodes) {
+        if (maxNodes < 1)
+            throw new IllegalArgumentException("Max nodes must be positive");
+        this.maxNodes = maxNodes;
+    }
+
+    @Override
+    public SolveResult solve(int[] givens) {
+        if (givens.length != cells)
+            throw new IllegalArgumentException("Expected " + cells + " cells, got " + givens.length);
+        long start = System.nanoTime();
+        Search search = new Search(1, false);
+        pool.invoke(new Branch(search, givens.clone(), 0));
+
+        int[] solution = search.solution.get();
+        SolveResult.Status status;
+        if (solution != null)
+            status = SolveResult.Status.SOLVED;
+        else if (search.aborted.get())
+            status = SolveResult.Status.ABORTED;
+        else
+            status = SolveResult.Status.INVALID;
+        return new SolveResult(status, solution, search.stats(System.nanoTime() - start));
+    }
+
+    @Override
+    public int countSolutions(int[] givens, int limit) {
+        if (givens.length != cells)
+            throw new IllegalArgumentException("Expected " + cells + " cells, got " + givens.length);
+        if (limit < 1)
+            throw new IllegalArgumentException("Limit must be positive");
+        Search search = new Search(limit, true);
+        pool.invoke(new Branch(search, givens.clone(), 0));
+
+        int count = search.count.get();
+        if (count < limit && search.aborted.get())
+            return -1;
+        return Math.min(count, limit);
+    }
+
+    /**
+     * A subtree of the search: the puzzle with the guesses made on the way down added as givens.
+     */
+    private final class Branch extends RecursiveTask<Void> {
+        /**
+         * Required of a serializable class; Branches are never serialized.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The shared state of the search.
+         */
+        private final Search search;
+
+        /**
+         * The givens of this subtree; owned by this task.
+         */
+        private final int[] givens;
+
+        /**
+         * The guess level of this subtree.
+         */
+        private final int depth;
+
+        /**
+         * Constructor for the Branch class.
+         *
+         * @param search the shared state of the search.
+         * @param givens the givens of this subtree.
+         * @param depth  the guess level of this subtree.
+         */
+        Branch(Search search, int[] givens, int depth) {
+            this.search = search;
+            this.givens = givens;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Void compute() {
+            if (search.found.get())
+                return null;
+            PropagationEngine engine = engines.get();
+
+            if (depth >= splitDepth) {
+                //Deep enough; search the rest of this subtree sequentially.
+                engine.setMaxNodes(maxNodes);
+                engine.setStopFlag(search.found);
+                try {
+                    if (search.counting) {
+                        int n = engine.countSolutions(givens, search.limit);
+                        if (n >= 0)
+                            search.record(null, n);
+                        else if (!search.found.get())
+                            search.aborted.set(true);
+                    } else {
+                        SolveResult result = engine.solve(givens);
+                        search.add(result.getStats(), 0, 0);
+                        if (result.isSolved())
+                            search.record(result.getSolution(), 1);
+                        else if (result.getStatus() == SolveResult.Status.ABORTED && !search.found.get())
+                            search.aborted.set(true);
+                    }
+                } finally {
+                    engine.setStopFlag(null);
+                }
+                return null;
+            }
+
+            SolveResult.Status status = engine.propagate(givens);
+            if (status != null && !search.counting)
+                search.add(engine.stats(0), 0, 0);
+            if (status == SolveResult.Status.SOLVED) {
+                int[] solution = new int[cells];
+                engine.exportValues(solution);
+                search.record(solution, 1);
+                return null;
+            }
+            if (status == SolveResult.Status.INVALID)
+                return null;
+
+            //Fork one task per candidate of the cell with the fewest candidates.
+            int cell = engine.branchCell();
+            long candidates = engine.getCandidates(cell / size, cell % size);
+            int[] base = new int[cells];
+            engine.exportValues(base);
+            Branch[] children = new Branch[Long.bitCount(candidates)];
+            if (!search.counting)
+                search.add(engine.stats(0), 1, children.length);
+            for (int i = 0; i < children.length; ++i) {
+                long guess = CandidateStore.lowest(candidates);
+                candidates &= ~guess;
+                int[] child = base.clone();
+                child[cell] = CandidateStore.valueOf(guess);
+                children[i] = new Branch(search, child, depth + 1);
+            }
+            invokeAll(children);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,809 @@
+package com.kabirkanha.sudoku;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * This class is the headless solving engine; it uses Constraint Propagation and Backtracking.
+ * <br>It does not depend on AWT/Swing and never prints, so it can run on machines without a display.
+ * <br>An instance can be reused for any number of puzzles, but must not be shared between threads.
+ */
+public class PropagationEngine implements Engine {
+    /**
+     * The size of the classic grid, used when no size is given.
+     */
+    static final int DEFAULT_SIZE = 9;
+
+    /**
+     * The largest grid size whose candidates fit in a bitmask.
+     */
+    static final int MAX_SIZE = 64;
+
+    /**
+     * The name reported to the listener when a cell is left with a single candidate.
+     */
+    public static final String NAKED_SINGLE = "Naked single";
+
+    /**
+     * The name reported to the listener when a value has only one place left in a row, column or grid.
+     */
+    public static final String HIDDEN_SINGLE = "Hidden single";
+
+    /**
+     * The size of the whole grid.
+     */
+    private final int size;
+
+    /**
+     * The layout of the grid, shared with every other engine of the same size.
+     */
+    private final Topology topology;
+
+    /**
+     * The number of peers of every cell.
+     */
+    private final int peerCount;
+
+    /**
+     * The shared table of the cells of every unit; see Topology.
+     */
+    private final int[] units;
+
+    /**
+     * The shared table of the units of every cell; see Topology.
+     */
+    private final int[] cellUnits;
+
+    /**
+     * The shared table of the peers of every cell; see Topology.
+     */
+    private final int[] peers;
+
+    /**
+     * The number of cells in the grid.
+     */
+    private final int cells;
+
+    /**
+     * This is the heuristic; it stores the remaining possible values for each cell as a bitmask.
+     */
+    private final CandidateStore cellSets;
+
+    /**
+     * Stores whether a confirmed cell has been queued to update others or not, indexed by cell.
+     */
+    private final boolean[] flag;
+
+    /**
+     * The cells whose flag has been set, in order; lets a backtrack clear only the flags set since the guess.
+     * <br>It doubles as the queue of confirmed cells: the entries from flagTrailDone on have not updated their peers yet.
+     */
+    private final int[] flagTrail;
+
+    /**
+     * The number of entries on the flag trail.
+     */
+    private int flagTrailSize = 0;
+
+    /**
+     * The number of entries on the flag trail that have already updated their peers.
+     */
+    private int flagTrailDone = 0;
+
+    /**
+     * The units (rows, then columns, then sub-grids) that lost candidates and have to be checked for only choices.
+     */
+    private final int[] unitQueue;
+
+    /**
+     * The number of units in the queue.
+     */
+    private int unitQueueSize = 0;
+
+    /**
+     * Stores whether a unit is in the queue, indexed by unit.
+     */
+    private final boolean[] unitQueued;
+
+    /**
+     * Set once a cell runs out of candidates or a unit has no place left for a value.
+     */
+    private boolean contradiction = false;
+
+    /**
+     * Stores the total number of backtracks of the current solve.
+     */
+    private int backtrackCnt = 0;
+
+    /**
+     * Stores the number of search nodes visited in the current solve.
+     */
+    private long nodeCnt = 0;
+
+    /**
+     * Stores the number of guesses made in the current solve.
+     */
+    private long guessCnt = 0;
+
+    /**
+     * Stores the number of propagation passes of the current solve.
+     */
+    private long passCnt = 0;
+
+    /**
+     * The names of the techniques: naked single, hidden single, then the stages in order.
+     */
+    private String[] techniqueNames;
+
+    /**
+     * How often each technique made progress in the current solve, in the same order as techniqueNames.
+     */
+    private long[] techniqueUses;
+
+    /**
+     * Stores the number of solutions found so far in the current search.
+     */
+    private int solutionCnt = 0;
+
+    /**
+     * The deepest guess level the search may reach before the solve is aborted.
+     */
+    private int maxDepth;
+
+    /**
+     * The number of search nodes the search may visit before the solve is aborted.
+     */
+    private long maxNodes = Long.MAX_VALUE;
+
+    /**
+     * The guessed cell at each guess level.
+     */
+    private final int[] stackCell;
+
+    /**
+     * The candidates not yet tried at each guess level.
+     */
+    private final long[] stackRemaining;
+
+    /**
+     * The candidate trail mark taken before each guess.
+     */
+    private final int[] stackMark;
+
+    /**
+     * The flag trail size before each guess.
+     */
+    private final int[] stackFlagMark;
+
+    /**
+     * The techniques tried once singles are exhausted, cheapest first.
+     */
+    private DeductionStage[] stages;
+
+    /**
+     * Receives the intermediate steps of the solve; may be null.
+     */
+    private SolveListener listener;
+
+    /**
+     * Stops the search early when raised; may be null.
+     */
+    private AtomicBoolean stop;
+
+    /**
+     * Constructor for the PropagationEngine class; solves 9x9 grids.
+     */
+    public PropagationEngine() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor for the PropagationEngine class.
+     *
+     * @param size the size of the whole grid, e.g. 9, 16 or 25; must be a perfect square.
+     */
+    public PropagationEngine(int size) {
+        this.size = size;
+        this.topology = Topology.of(size);
+        this.peerCount = topology.peerCount;
+        this.units = topology.units;
+        this.cellUnits = topology.cellUnits;
+        this.peers = topology.peers;
+        this.cells = size * size;
+        cellSets = new CandidateStore(cells, size);
+        flag = new boolean[cells];
+        flagTrail = new int[cells];
+        unitQueue = new int[topology.unitCount];
+        unitQueued = new boolean[topology.unitCount];
+        maxDepth = cells;
+        stackCell = new int[cells];
+        stackRemaining = new long[cells];
+        stackMark = new int[cells];
+        stackFlagMark = new int[cells];
+        setStages(DeductionStage.forSearch());
+    }
+
+    /**
+     * Works out the size of one sub-grid.
+     *
+     * @param size the size of the whole grid.
+     * @return the size of one sub-grid.
+     * @throws IllegalArgumentException if the size is not a perfect square between 4 and MAX_SIZE.
+     */
+    static int subGridSize(int size) {
+        int gridSize = (int) Math.round(Math.sqrt(size));
+        if (size < 4 || size > MAX_SIZE || gridSize * gridSize != size)
+            throw new IllegalArgumentException("Grid size must be a perfect square between 4 and " + MAX_SIZE + ", got " + size);
+        return gridSize;
+    }
+
+    /**
+     * Works out the grid size from a number of cells.
+     *
+     * @param cells the number of cells, e.g. 81.
+     * @return the size of the whole grid, e.g. 9.
+     * @throws IllegalArgumentException if no supported grid has that many cells.
+     */
+    static int sizeForCells(int cells) {
+        int size = (int) Math.round(Math.sqrt(cells));
+        if (size * size != cells)
+            throw new IllegalArgumentException("No square grid has " + cells + " cells");
+        subGridSize(size);
+        return size;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Sets the listener that receives the intermediate steps of every solve.
+     *
+     * @param listener the listener, or null to solve silently.
+     */
+    public void setListener(SolveListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Limits how deep the guesses of a solve may be nested; deeper searches are aborted.
+     *
+     * @param maxDepth the maximum number of nested guesses, at most the number of cells.
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 0 || maxDepth > cells)
+            throw new IllegalArgumentException("Max depth must be between 0 and " + cells);
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Limits the number of search nodes a solve may visit; longer searches are aborted.
+     *
+     * @param maxNodes the maximum number of nodes.
+     */
+    @Override
+    public void setMaxNodes(long maxNodes) {
+        if (maxNodes < 1)
+            throw new IllegalArgumentException("Max nodes must be positive");
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Solves a sudoku.
+     *
+     * @param givens the grid in row-major order; 0 marks an empty cell.
+     * @return the result of the solve.
+     */
+    @Override
+    public SolveResult solve(int[] givens) {
+        long start = System.nanoTime();
+        load(givens);
+
+        SolveResult.Status status = solveWithBacktrack(1);
+        int[] solution = null;
+        if (status == SolveResult.Status.SOLVED) {
+            solution = new int[cells];
+            exportValues(solution);
+        }
+        return new SolveResult(status, solution, stats(System.nanoTime() - start));
+    }
+
+    @Override
+    public int countSolutions(int[] givens, int limit) {
+        if (limit < 1)
+            throw new IllegalArgumentException("Limit must be positive");
+        load(givens);
+        if (solveWithBacktrack(limit) == SolveResult.Status.ABORTED)
+            return -1;
+        return solutionCnt;
+    }
+
+    /**
+     * Sets the techniques tried once singles are exhausted; they are sorted by cost, cheapest first.
+     * <br>With no stages the engine only uses singles and guesses.
+     *
+     * @param stages the stages; each must belong to this engine alone.
+     */
+    void setStages(DeductionStage... stages) {
+        DeductionStage[] sorted = stages.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(DeductionStage::getCost));
+        this.stages = sorted;
+        techniqueNames = new String[sorted.length + 2];
+        techniqueNames[0] = NAKED_SINGLE;
+        techniqueNames[1] = HIDDEN_SINGLE;
+        for (int i = 0; i < sorted.length; ++i) {
+            techniqueNames[i + 2] = sorted[i].getName();
+        }
+        techniqueUses = new long[techniqueNames.length];
+    }
+
+    /**
+     * Collects the statistics of the current solve.
+     *
+     * @param wallNanos the wall-clock time of the solve, in nanoseconds.
+     * @return the statistics.
+     */
+    SolveStats stats(long wallNanos) {
+        return new SolveStats(nodeCnt, guessCnt, backtrackCnt, passCnt, techniqueNames, techniqueUses.clone(), wallNanos);
+    }
+
+    /**
+     * Makes solves stop early once a flag is raised; used to cancel searches that are no longer needed.
+     * <br>A cancelled solve returns an ABORTED result.
+     *
+     * @param stop the flag to watch, or null to never stop early.
+     */
+    void setStopFlag(AtomicBoolean stop) {
+        this.stop = stop;
+    }
+
+    /**
+     * Loads a puzzle and runs constraint propagation on it without guessing; used to split a search between threads.
+     *
+     * @param givens the grid in row-major order; 0 marks an empty cell.
+     * @return SOLVED or INVALID if propagation alone settles the puzzle; null if a guess is needed.
+     */
+    SolveResult.Status propagate(int[] givens) {
+        load(givens);
+        solve();
+        if (contradiction)
+            return SolveResult.Status.INVALID;
+        if (flagTrailSize == cells)
+            return SolveResult.Status.SOLVED;
+        return null;
+    }
+
+    /**
+     * @return the cell the search would guess in next; only meaningful after propagate() returned null.
+     */
+    int branchCell() {
+        return findGuessCell();
+    }
+
+    /**
+     * Copies the confirmed values of the current solve into an array.
+     *
+     * @param dst the array to fill in row-major order; 0 marks an unconfirmed cell.
+     */
+    void exportValues(int[] dst) {
+        for (int cell = 0; cell < cells; ++cell) {
+            dst[cell] = cellSets.value(cell);
+        }
+    }
+
+    /**
+     * Resets the engine and loads the givens of a puzzle.
+     *
+     * @param givens the grid in row-major order; 0 marks an empty cell.
+     */
+    private void load(int[] givens) {
+        if (givens.length != cells)
+            throw new IllegalArgumentException("Expected " + cells + " cells, got " + givens.length);
+
+        //Reset everything.
+        cellSets.reset();
+        resetFlags();
+        clearQueues();
+        contradiction = false;
+        backtrackCnt = 0;
+        nodeCnt = 0;
+        guessCnt = 0;
+        passCnt = 0;
+        Arrays.fill(techniqueUses, 0);
+        solutionCnt = 0;
+
+        //Update cell sets from input.
+        for (int cell = 0; cell < cells; ++cell) {
+            int value = givens[cell];
+            if (value < 0 || value > size)
+                throw new IllegalArgumentException("Invalid value " + value + " at cell (" + (cell / size + 1) + "," + (cell % size + 1) + ")");
+            if (value != 0) {
+                cellSets.fix(cell, value);
+                changed(cell);
+            }
+        }
+    }
+
+    /**
+     * Returns the remaining candidates of a cell in the current solve.
+     *
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     * @return a bitmask in which bit (k - 1) is set if k is still a candidate.
+     */
+    public long getCandidates(int row, int col) {
+        return cellSets.get(row * size + col);
+    }
+
+    /**
+     * Returns the value of a cell in the current solve.
+     *
+     * @param row the row index of the cell
+     * @param col the column index of the cell
+     * @return the value if the cell is confirmed; 0 otherwise.
+     */
+    public int getValue(int row, int col) {
+        return cellSets.value(row * size + col);
+    }
+
+    /**
+     * Checks whether a filled grid is a correct sudoku solution.
+     *
+     * @param cells the grid in row-major order.
+     * @return true if every row, column and sub-grid contains every number exactly once.
+     */
+    public static boolean verify(int[] cells) {
+        int size;
+        try {
+            size = sizeForCells(cells.length);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        for (int value : cells) {
+            if (value < 1 || value > size)
+                return false;
+        }
+
+        //Rows, columns and grids
+        int[] units = Topology.of(size).units;
+        for (int unit = 0; unit < 3 * size; ++unit) {
+            long seen = 0;
+            for (int k = unit * size; k < (unit + 1) * size; ++k) {
+                long bit = CandidateStore.bit(cells[units[k]]);
+                if ((seen & bit) != 0)
+                    return false;
+                seen |= bit;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes instances of a number from its row, column and grid.
+     *
+     * @param mask the candidates to remove
+     * @param cell the index of the cell
+     */
+    private void removeInstances(long mask, int cell) {
+        for (int i = cell * peerCount, end = i + peerCount; i < end; ++i) {
+            eliminate(peers[i], mask);
+        }
+    }
+
+    /**
+     * @return the layout of the grid; used by the deduction stages.
+     */
+    Topology topology() {
+        return topology;
+    }
+
+    /**
+     * @param cell the index of the cell
+     * @return the remaining candidates of the cell; used by the deduction stages.
+     */
+    long candidates(int cell) {
+        return cellSets.get(cell);
+    }
+
+    /**
+     * Removes candidates from a cell and queues whatever the change affects.
+     *
+     * @param cell the index of the cell
+     * @param mask the candidates to remove
+     * @return true if the cell lost at least one candidate.
+     */
+    boolean eliminate(int cell, long mask) {
+        if (!cellSets.remove(cell, mask))
+            return false;
+        if (changed(cell)) {
+            techniqueUses[0]++;
+            if (listener != null)
+                listener.deduced(this, NAKED_SINGLE);
+        }
+        return true;
+    }
+
+    /**
+     * Queues the consequences of a change to a cell: the cell itself once it is confirmed, and its row, column and grid.
+     *
+     * @param cell the index of the cell that changed
+     * @return true if the change confirmed the cell.
+     */
+    private boolean changed(int cell) {
+        long mask = cellSets.get(cell);
+        if (mask == 0) {
+            contradiction = true;
+            return false;
+        }
+        boolean confirmed = false;
+        if ((mask & (mask - 1)) == 0 && !flag[cell]) {
+            flag[cell] = true;
+            flagTrail[flagTrailSize++] = cell;
+            confirmed = true;
+        }
+        queueUnit(cellUnits[cell * 3]);
+        queueUnit(cellUnits[cell * 3 + 1]);
+        queueUnit(cellUnits[cell * 3 + 2]);
+        return confirmed;
+    }
+
+    /**
+     * Adds a unit to the queue unless it is already there.
+     *
+     * @param unit the index of the unit
+     */
+    private void queueUnit(int unit) {
+        if (!unitQueued[unit]) {
+            unitQueued[unit] = true;
+            unitQueue[unitQueueSize++] = unit;
+        }
+    }
+
+    /**
+     * Empties both queues without processing them.
+     */
+    private void clearQueues() {
+        flagTrailDone = flagTrailSize;
+        while (unitQueueSize > 0) {
+            unitQueued[unitQueue[--unitQueueSize]] = false;
+        }
+    }
+
+    /**
+     * Reports the current state to the listener, if there is one.
+     */
+    private void publish() {
+        if (listener != null)
+            listener.stepped(this);
+    }
+
+    /**
+     * Checks a row/column/grid to find if there exists a cell that has a candidate not possible anywhere else in it.
+     *
+     * @param unit the index of the unit
+     */
+    private void onlyChoice(int unit) {
+        int first = unit * size;
+        int end = first + size;
+        long once = 0, more = 0;
+        for (int k = first; k < end; ++k) {
+            long m = cellSets.get(units[k]);
+            more |= once & m;
+            once |= m;
+        }
+
+        //A value with no place left in the unit can never be filled in.
+        if (once != cellSets.all()) {
+            contradiction = true;
+            return;
+        }
+        long only = once & ~more;
+        for (int k = first; only != 0 && k < end && !contradiction; ++k) {
+            onlyChoicePicker(units[k], only);
+        }
+    }
+
+    /**
+     * Fixes a value of a cell to the candidate that only that cell has in its row/column/grid.
+     *
+     * @param cell the index of the cell
+     * @param only the candidates that occur exactly once in the row/column/grid
+     */
+    private void onlyChoicePicker(int cell, long only) {
+        long mask = cellSets.get(cell);
+        long hit = mask & only;
+        if (hit == 0)
+            return;
+        //One cell cannot be the only place for two values.
+        if ((hit & (hit - 1)) != 0) {
+            contradiction = true;
+            return;
+        }
+        if (hit != mask) {
+            cellSets.set(cell, hit);
+            if (changed(cell)) {
+                techniqueUses[1]++;
+                if (listener != null)
+                    listener.deduced(this, HIDDEN_SINGLE);
+            }
+        }
+    }
+
+    /**
+     * Function to solve the Sudoku grid; uses backtracking iff regular constraint propagation techniques are inadequate to find the solution.
+     * <br>The search is iterative; every guess level lives on a preallocated stack instead of the Java call stack.
+     * <br>Solutions are counted in solutionCnt; the search goes on past a solution until the limit is reached.
+     *
+     * @param limit the number of solutions to stop at.
+     * @return SOLVED if the limit was reached, with the last solution left in the cell sets; INVALID if the search ran out of options first; ABORTED if it was stopped.
+     */
+    private SolveResult.Status solveWithBacktrack(int limit) {
+        int depth = 0;
+        while (true) {
+            //Propagate the current state, then either finish, go one guess deeper or backtrack.
+            solve();
+            boolean failed = contradiction;
+            if (!failed && flagTrailSize == cells) {
+                if (++solutionCnt >= limit)
+                    return SolveResult.Status.SOLVED;
+                //Keep counting; carry on as if this branch had failed.
+                failed = true;
+            }
+
+            if (++nodeCnt > maxNodes || (stop != null && stop.get()))
+                return SolveResult.Status.ABORTED;
+
+            if (!failed) {
+                //Not solved and not stuck, so there is an unconfirmed cell to branch on.
+                if (depth == maxDepth)
+                    return SolveResult.Status.ABORTED;
+                int cell = findGuessCell();
+
+                //Create restore point
+                stackCell[depth] = cell;
+                stackMark[depth] = cellSets.mark();
+                stackFlagMark[depth] = flagTrailSize;
+                long candidates = cellSets.get(cell);
+                stackRemaining[depth] = candidates & ~CandidateStore.lowest(candidates);
+                ++depth;
+
+                makeAGuess(cell, CandidateStore.lowest(candidates), false);
+            } else {
+                //Unwind to the deepest guess that still has a candidate left to try.
+                while (true) {
+                    if (depth == 0)
+                        return SolveResult.Status.INVALID;
+                    int top = depth - 1;
+                    restoreValues(stackMark[top], stackFlagMark[top]);
+                    long remaining = stackRemaining[top];
+                    if (remaining != 0) {
+                        long guess = CandidateStore.lowest(remaining);
+                        stackRemaining[top] = remaining & ~guess;
+                        makeAGuess(stackCell[top], guess, true);
+                        break;
+                    }
+                    --depth;
+                    backtrackCnt++;
+                    if (listener != null)
+                        listener.backtracked();
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes back every change made since a restore point.
+     *
+     * @param cellSetsSaved the mark of the candidate trail
+     * @param flagSaved     the size of the flag trail
+     */
+    private void restoreValues(int cellSetsSaved, int flagSaved) {
+        cellSets.undo(cellSetsSaved);
+        clearQueues();
+        while (flagTrailSize > flagSaved) {
+            flag[flagTrail[--flagTrailSize]] = false;
+        }
+        flagTrailDone = flagSaved;
+        contradiction = false;
+    }
+
+    /**
+     * Finds the unconfirmed cell with the fewest remaining candidates (minimum remaining values).
+     *
+     * @return the index of the cell, or -1 if every cell is confirmed.
+     */
+    private int findGuessCell() {
+        int best = -1;
+        int bestCnt = Integer.MAX_VALUE;
+        for (int cell = 0; cell < cells; ++cell) {
+            int cnt = cellSets.count(cell);
+            if (cnt > 1 && cnt < bestCnt) {
+                best = cell;
+                bestCnt = cnt;
+                //No unconfirmed cell can do better than two.
+                if (cnt == 2)
+                    break;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Function that makes a guess in a cell; every candidate of the cell is tried in turn until one works.
+     *
+     * @param cell      the index of the cell
+     * @param guess     the mask of the single candidate to keep
+     * @param corrected true if this replaces an incorrect earlier guess at the same cell
+     */
+    private void makeAGuess(int cell, long guess, boolean corrected) {
+        cellSets.set(cell, guess);
+        changed(cell);
+        guessCnt++;
+        if (listener != null)
+            listener.guessed(this, cell / size, cell % size, corrected);
+    }
+
+    /**
+     * Loops between eliminating choices from confirmed cells and filling in only choices as long as it can.
+     * <br>Only the work queued by actual changes is done: each newly confirmed cell updates its peers once, and only the
+     * rows, columns and grids that lost candidates are searched for only choices.
+     * <br>When neither finds anything, the deduction stages are tried before the search has to guess.
+     */
+    private void solve() {
+        while (!contradiction) {
+            if (flagTrailDone == flagTrailSize && unitQueueSize == 0) {
+                //Singles are exhausted; go back to them as soon as a stage removes anything.
+                if (!deduce())
+                    break;
+                continue;
+            }
+            passCnt++;
+            while (flagTrailDone < flagTrailSize && !contradiction) {
+                int cell = flagTrail[flagTrailDone++];
+                removeInstances(cellSets.get(cell), cell);
+            }
+            if (!contradiction)
+                publish();
+            while (unitQueueSize > 0 && !contradiction) {
+                int unit = unitQueue[--unitQueueSize];
+                unitQueued[unit] = false;
+                onlyChoice(unit);
+            }
+            publish();
+        }
+        if (contradiction)
+            clearQueues();
+    }
+
+    /**
+     * Tries the deduction stages, cheapest first, until one of them removes a candidate.
+     *
+     * @return true if a stage made progress.
+     */
+    private boolean deduce() {
+        for (int i = 0; i < stages.length; ++i) {
+            DeductionStage stage = stages[i];
+            if (stage.apply(this)) {
+                techniqueUses[i + 2]++;
+                if (listener != null)
+                    listener.deduced(this, stage.getName());
+                publish();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resets all flags
+     */
+    private void resetFlags() {
+        for (int cell = 0; cell < cells; ++cell) {
+            flag[cell] = false;
+        }
+        flagTrailSize = 0;
+        flagTrailDone = 0;
+    }
+}
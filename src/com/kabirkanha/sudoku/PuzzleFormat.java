@@ -0,0 +1,111 @@
+package com.kabirkanha.sudoku;
+
+import java.util.Arrays;
+
+/**
+ * This class converts puzzles to and from the common one-line text format.
+ * <br>A puzzle is written as one character per cell in row-major order; '0' or '.' marks an empty cell.
+ * Values 1 to 9 are written as digits and larger values as letters, so 10 is 'A' and 16 is 'G' on a 16x16 grid.
+ * The grid size follows from the line length, e.g. 81 characters for 9x9 and 256 for 16x16.
+ */
+final class PuzzleFormat {
+    /**
+     * The characters used for the values 1, 2, 3 and so on.
+     */
+    private static final String SYMBOLS = "123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+
+    /**
+     * The largest grid whose values all have a symbol.
+     */
+    static final int MAX_LINE_SIZE = 49;
+
+    /**
+     * Maps a character to its value; 0 for an empty cell, -1 if the character is not allowed.
+     */
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        VALUES['0'] = 0;
+        VALUES['.'] = 0;
+        for (int i = 0; i < SYMBOLS.length(); ++i) {
+            VALUES[SYMBOLS.charAt(i)] = (byte) (i + 1);
+        }
+    }
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private PuzzleFormat() {
+    }
+
+    /**
+     * Works out the grid size of a puzzle line.
+     *
+     * @param length the length of the line.
+     * @return the size of the whole grid.
+     * @throws IllegalArgumentException if no supported grid has that many cells.
+     */
+    static int sizeForLength(int length) {
+        int size = PropagationEngine.sizeForCells(length);
+        if (size > MAX_LINE_SIZE)
+            throw new IllegalArgumentException("Grids larger than " + MAX_LINE_SIZE + "x" + MAX_LINE_SIZE + " cannot be written on one line");
+        return size;
+    }
+
+    /**
+     * Parses a puzzle line.
+     *
+     * @param line  the line, e.g. 81 characters for a 9x9 grid.
+     * @param cells the array to fill in row-major order; 0 marks an empty cell.
+     * @throws IllegalArgumentException if the line has the wrong length or an unknown character.
+     */
+    static void parseLine(CharSequence line, int[] cells) {
+        if (line.length() != cells.length)
+            throw new IllegalArgumentException("Expected " + cells.length + " characters, got " + line.length());
+        int size = sizeForLength(cells.length);
+
+        boolean caseSensitive = isCaseSensitive(size);
+        for (int cell = 0; cell < cells.length; ++cell) {
+            int value = valueOf(line.charAt(cell), caseSensitive);
+            if (value < 0 || value > size)
+                throw new IllegalArgumentException("Unexpected character '" + line.charAt(cell) + "' at position " + (cell + 1));
+            cells[cell] = value;
+        }
+    }
+
+    /**
+     * Lower case letters only have their own meaning on grids that need them; on smaller grids they are read as upper case.
+     *
+     * @param size the size of the whole grid.
+     * @return true if upper and lower case letters stand for different values.
+     */
+    static boolean isCaseSensitive(int size) {
+        return size > 35;
+    }
+
+    /**
+     * Looks up the value of a character.
+     *
+     * @param ch            the character.
+     * @param caseSensitive whether lower case letters have their own values; see isCaseSensitive().
+     * @return the value; 0 for an empty cell, -1 if the character is not allowed.
+     */
+    static int valueOf(int ch, boolean caseSensitive) {
+        if (!caseSensitive && ch >= 'a' && ch <= 'z')
+            ch = ch - 'a' + 'A';
+        return ch < VALUES.length ? VALUES[ch] : -1;
+    }
+
+    /**
+     * Appends a grid to a StringBuilder in the one-line format, using '0' for empty cells.
+     *
+     * @param cells the grid in row-major order.
+     * @param out   the builder to append to.
+     */
+    static void appendLine(int[] cells, StringBuilder out) {
+        for (int value : cells) {
+            out.append(value == 0 ? '0' : SYMBOLS.charAt(value - 1));
+        }
+    }
+}
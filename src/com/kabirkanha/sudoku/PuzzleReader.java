@@ -0,0 +1,435 @@
+package com.kabirkanha.sudoku;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class reads puzzles straight from bytes into primitive grids, without creating a string per puzzle or per cell.
+ * <br>Every puzzle is in one of these formats, which may be mixed in one input:
+ * <ul>
+ * <li>One line of one character per cell, as in PuzzleFormat; '0' or '.' marks an empty cell (dot notation).</li>
+ * <li>Comma-separated values, one row per line, as the GUI reads them; the number of fields in the first row gives the
+ * size. An empty field, '0' or '.' marks an empty cell, and a short row is padded with empty cells.</li>
+ * <li>Comma-separated values of all cells on one line, e.g. 81 fields for a 9x9 grid; a line of 16 fields is the
+ * first row of a 16x16 grid rather than a whole 4x4 one.</li></ul>
+ * Blank lines and lines starting with '#' between puzzles are skipped.
+ * <br>Files are memory-mapped in windows, so inputs of any size can be read with constant memory.
+ * A reader must not be shared between threads.
+ */
+final class PuzzleReader implements Closeable {
+    /**
+     * Returned by next() at the end of the input.
+     */
+    static final int END = 0;
+
+    /**
+     * Returned by next() for a puzzle that could not be parsed; the reader moves on to the next line.
+     */
+    static final int MALFORMED = -1;
+
+    /**
+     * Returned by the parsers when a puzzle runs past the end of the mapped window.
+     */
+    private static final int MORE = -2;
+
+    /**
+     * The largest part of a file mapped at once.
+     */
+    private static final int WINDOW = 64 << 20;
+
+    /**
+     * The mapped file; null when reading from a buffer.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The length of the input in bytes.
+     */
+    private final long length;
+
+    /**
+     * The current window of the input.
+     */
+    private ByteBuffer buffer;
+
+    /**
+     * The offset in the input of the first byte of the window.
+     */
+    private long bufferStart = 0;
+
+    /**
+     * The index in the window of the next byte to read.
+     */
+    private int pos = 0;
+
+    /**
+     * The index in the window of the end of the bytes that are available.
+     */
+    private int limit;
+
+    /**
+     * One reusable grid per size.
+     */
+    private final int[][] grids = new int[PropagationEngine.MAX_SIZE + 1][];
+
+    /**
+     * The grid of the last puzzle read.
+     */
+    private int[] cells;
+
+    /**
+     * The number of commas in the line last scanned by lineEnd().
+     */
+    private int commas;
+
+    /**
+     * Constructor for the PuzzleReader class; reads from a buffer.
+     *
+     * @param buffer the input, from its position to its limit.
+     */
+    PuzzleReader(ByteBuffer buffer) {
+        this.channel = null;
+        this.buffer = buffer.slice();
+        this.length = this.buffer.limit();
+        this.limit = this.buffer.limit();
+    }
+
+    /**
+     * Constructor for the PuzzleReader class; maps a file.
+     *
+     * @param channel the open file.
+     * @throws IOException if the file cannot be mapped.
+     */
+    private PuzzleReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.length = channel.size();
+        map(0);
+    }
+
+    /**
+     * Opens a file for reading.
+     *
+     * @param path the file.
+     * @return a reader of the file.
+     * @throws IOException if the file cannot be opened.
+     */
+    static PuzzleReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new PuzzleReader(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Maps the window that starts at an offset.
+     *
+     * @param offset the offset in the file.
+     * @throws IOException if mapping fails.
+     */
+    private void map(long offset) throws IOException {
+        long size = Math.min(WINDOW, length - offset);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        bufferStart = offset;
+        pos = 0;
+        limit = (int) size;
+    }
+
+    /**
+     * Moves the window on so that it starts at the given index of the current window.
+     *
+     * @param index the index in the current window.
+     * @return false if there is nothing after the current window.
+     * @throws IOException if mapping fails.
+     */
+    private boolean slide(int index) throws IOException {
+        if (channel == null || bufferStart + limit >= length)
+            return false;
+        map(bufferStart + index);
+        return true;
+    }
+
+    /**
+     * @return true if the window reaches the end of the input.
+     */
+    private boolean atEnd() {
+        return bufferStart + limit >= length;
+    }
+
+    /**
+     * Reads the next puzzle.
+     *
+     * @return the size of its grid (see cells()), END at the end of the input, or MALFORMED if it could not be parsed.
+     * @throws IOException if reading the file fails.
+     */
+    int next() throws IOException {
+        if (!skipBlankLines())
+            return END;
+        while (true) {
+            int start = pos;
+            int result = parseRecord();
+            if (result != MORE)
+                return result;
+            //The puzzle runs past the window; map again from its start.
+            if (start == 0 && limit == WINDOW) {
+                //Longer than a whole window, so surely not a puzzle.
+                skipLine();
+                return MALFORMED;
+            }
+            slide(start);
+        }
+    }
+
+    /**
+     * @return the grid of the last puzzle read, in row-major order with 0 for an empty cell; reused by later calls.
+     */
+    int[] cells() {
+        return cells;
+    }
+
+    /**
+     * Skips blank lines and comment lines.
+     *
+     * @return false at the end of the input.
+     * @throws IOException if reading the file fails.
+     */
+    private boolean skipBlankLines() throws IOException {
+        while (true) {
+            if (pos == limit && !slide(pos))
+                return false;
+            byte b = buffer.get(pos);
+            if (b == '\n' || b == '\r' || b == ' ' || b == '\t') {
+                ++pos;
+            } else if (b == '#') {
+                skipLine();
+            } else {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Skips the rest of the current line, including its line break.
+     *
+     * @throws IOException if reading the file fails.
+     */
+    private void skipLine() throws IOException {
+        while (true) {
+            while (pos < limit) {
+                if (buffer.get(pos++) == '\n')
+                    return;
+            }
+            if (!slide(pos))
+                return;
+        }
+    }
+
+    /**
+     * Finds the end of the line that starts at an index, without the line break and trailing white space, and counts
+     * its commas on the way.
+     *
+     * @param from the index of the first byte of the line.
+     * @return the index just after the last byte of the line, or MORE if the line runs past the window.
+     */
+    private int lineEnd(int from) {
+        int i = from;
+        int commas = 0;
+        byte b;
+        while (i < limit && (b = buffer.get(i)) != '\n') {
+            if (b == ',')
+                ++commas;
+            ++i;
+        }
+        this.commas = commas;
+        if (i == limit && !atEnd())
+            return MORE;
+        int end = i;
+        while (end > from && isSpace(buffer.get(end - 1))) {
+            --end;
+        }
+        return end;
+    }
+
+    /**
+     * @param b a byte.
+     * @return true for a space, tab or carriage return.
+     */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /**
+     * Moves past the line that ends at an index.
+     *
+     * @param end the index returned by lineEnd().
+     */
+    private void finishLine(int end) {
+        pos = end;
+        while (pos < limit && buffer.get(pos) != '\n') {
+            ++pos;
+        }
+        if (pos < limit)
+            ++pos;
+    }
+
+    /**
+     * Parses one puzzle in whichever format it is written.
+     *
+     * @return the size of the grid, MALFORMED, or MORE if the puzzle runs past the window.
+     */
+    private int parseRecord() {
+        int end = lineEnd(pos);
+        if (end == MORE)
+            return MORE;
+        if (commas == 0)
+            return parseLine(end);
+        return parseCsv(end, commas + 1);
+    }
+
+    /**
+     * Parses a puzzle in the one-line format.
+     *
+     * @param end the end of the line.
+     * @return the size of the grid, or MALFORMED.
+     */
+    private int parseLine(int end) {
+        int start = pos;
+        finishLine(end);
+        int size = sizeForCells(end - start);
+        if (size < 0 || size > PuzzleFormat.MAX_LINE_SIZE)
+            return MALFORMED;
+        int[] grid = grid(size);
+        boolean caseSensitive = PuzzleFormat.isCaseSensitive(size);
+        for (int i = start, cell = 0; i < end; ++i, ++cell) {
+            int value = PuzzleFormat.valueOf(buffer.get(i) & 0xFF, caseSensitive);
+            if (value < 0 || value > size)
+                return MALFORMED;
+            grid[cell] = value;
+        }
+        cells = grid;
+        return size;
+    }
+
+    /**
+     * Parses a puzzle of comma-separated values.
+     *
+     * @param end    the end of the first line.
+     * @param fields the number of fields in the first line.
+     * @return the size of the grid, MALFORMED, or MORE if the puzzle runs past the window.
+     */
+    private int parseCsv(int end, int fields) {
+        //One row per line, or all cells on one line. 16 fields are read as the first row of a 16x16 grid, not a 4x4 one.
+        int size = fields;
+        int rows = size;
+        if (!isSize(fields)) {
+            size = sizeForCells(fields);
+            rows = 1;
+            if (size < 0) {
+                finishLine(end);
+                return MALFORMED;
+            }
+        }
+        int[] grid = grid(size);
+        int perRow = size * size / rows;
+
+        //Rows missing at the end of the input are empty, as in a short row.
+        //After a malformed row the rest of the puzzle is still read, so that it is not mistaken for another puzzle.
+        boolean ok = true;
+        for (int row = 0; row < rows; ++row) {
+            if (row > 0) {
+                end = lineEnd(pos);
+                if (end == MORE)
+                    return MORE;
+            }
+            ok &= parseCsvRow(end, size, grid, row * perRow, perRow);
+            finishLine(end);
+        }
+        if (!ok)
+            return MALFORMED;
+        cells = grid;
+        return size;
+    }
+
+    /**
+     * Parses one line of comma-separated values.
+     *
+     * @param end   the end of the line.
+     * @param size  the size of the whole grid.
+     * @param grid  the grid to fill.
+     * @param first the first cell the line fills.
+     * @param count the number of cells the line fills; missing fields are empty cells.
+     * @return false if the line is malformed.
+     */
+    private boolean parseCsvRow(int end, int size, int[] grid, int first, int count) {
+        int field = 0;
+        int value = 0;
+        boolean digits = false, other = false;
+        for (int i = pos; i <= end; ++i) {
+            byte b = i < end ? buffer.get(i) : (byte) ',';
+            if (b == ',') {
+                if (field == count || other || value > size)
+                    return false;
+                grid[first + field++] = value;
+                value = 0;
+                digits = false;
+            } else if (b >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                digits = true;
+                //Stop before the value can overflow.
+                if (value > PropagationEngine.MAX_SIZE)
+                    other = true;
+            } else if (b == '.' && !digits) {
+                //An empty cell in dot notation.
+                value = 0;
+            } else if (!isSpace(b)) {
+                other = true;
+            }
+        }
+        while (field < count) {
+            grid[first + field++] = 0;
+        }
+        return true;
+    }
+
+    /**
+     * @param size the size of the whole grid.
+     * @return the reusable grid of that size.
+     */
+    private int[] grid(int size) {
+        if (grids[size] == null)
+            grids[size] = new int[size * size];
+        return grids[size];
+    }
+
+    /**
+     * @param size a number of rows.
+     * @return true if a grid of that size is supported.
+     */
+    private static boolean isSize(int size) {
+        int gridSize = (int) Math.round(Math.sqrt(size));
+        return size >= 4 && size <= PropagationEngine.MAX_SIZE && gridSize * gridSize == size;
+    }
+
+    /**
+     * Works out the size of a grid from its number of cells, without throwing.
+     *
+     * @param cells the number of cells.
+     * @return the size, or -1 if no supported grid has that many cells.
+     */
+    private static int sizeForCells(int cells) {
+        int size = (int) Math.round(Math.sqrt(cells));
+        return size * size == cells && isSize(size) ? size : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null)
+            channel.close();
+    }
+}
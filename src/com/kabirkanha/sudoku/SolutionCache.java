@@ -0,0 +1,230 @@
+package com.kabirkanha.sudoku;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the outcomes of 9x9 puzzles, keyed by their canonical form (see Canonicalizer), so that a puzzle
+ * hits the cache when any puzzle equivalent to it was solved before.
+ * <br>Solutions are stored in the canonical layout; CachingEngine maps them back to the layout of each puzzle.
+ * <br>The entries are split over segments by hash, each a small LRU map under its own lock, so threads rarely wait for
+ * each other; every segment evicts its least recently used entry when it is full.
+ */
+final class SolutionCache {
+    /**
+     * The stored value of a puzzle without a solution.
+     */
+    private static final long[] INVALID = new long[0];
+
+    /**
+     * The segments; their number is a power of two.
+     */
+    private final Segment[] segments;
+
+    /**
+     * The most entries the cache holds.
+     */
+    private final int capacity;
+
+    /**
+     * The number of lookups that found an entry, did not, and the number of entries evicted.
+     */
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder();
+
+    /**
+     * A canonical form packed 4 bits per cell, with its hash computed once.
+     */
+    private static final class Key {
+        /**
+         * The packed cells.
+         */
+        final long[] cells;
+
+        /**
+         * The hash of the cells.
+         */
+        final int hash;
+
+        /**
+         * Constructor for the Key class.
+         *
+         * @param canonical the canonical form.
+         */
+        Key(int[] canonical) {
+            cells = pack(canonical);
+            hash = Arrays.hashCode(cells);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).hash == hash && Arrays.equals(((Key) o).cells, cells);
+        }
+    }
+
+    /**
+     * One part of the cache: an LRU map that must only be used while holding its lock.
+     */
+    private final class Segment extends LinkedHashMap<Key, long[]> {
+        /**
+         * Required of a serializable class; Segments are never serialized.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * The most entries the segment holds.
+         */
+        private final int capacity;
+
+        /**
+         * Constructor for the Segment class.
+         *
+         * @param capacity the most entries the segment holds.
+         */
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, long[]> eldest) {
+            if (size() <= capacity)
+                return false;
+            evictions.increment();
+            return true;
+        }
+    }
+
+    /**
+     * Constructor for the SolutionCache class.
+     *
+     * @param capacity the most puzzles to remember; at least 1.
+     */
+    SolutionCache(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        this.capacity = capacity;
+        //About four segments per core, but never fewer than 64 entries per segment.
+        int count = Integer.highestOneBit(Math.max(1, Math.min(4 * Runtime.getRuntime().availableProcessors(), capacity / 64)));
+        segments = new Segment[count];
+        //Spread the remainder over the first segments, so that the capacities add up to exactly the total.
+        for (int i = 0; i < count; ++i) {
+            segments[i] = new Segment(capacity / count + (i < capacity % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Packs a grid 4 bits per cell.
+     *
+     * @param cells the grid, with values from 0 to 9.
+     * @return the packed grid.
+     */
+    private static long[] pack(int[] cells) {
+        long[] packed = new long[(cells.length + 15) / 16];
+        for (int i = 0; i < cells.length; ++i) {
+            packed[i >>> 4] |= (long) cells[i] << (4 * (i & 15));
+        }
+        return packed;
+    }
+
+    /**
+     * @param key a key.
+     * @return the segment that holds the key.
+     */
+    private Segment segmentOf(Key key) {
+        //Mix the high bits in, as the low bits of an array hash vary little.
+        int h = key.hash ^ (key.hash >>> 16);
+        return segments[h & (segments.length - 1)];
+    }
+
+    /**
+     * Looks up a puzzle.
+     *
+     * @param canonical the canonical form of the puzzle.
+     * @param solution  receives the canonical solution if the puzzle was solved.
+     * @return SOLVED or INVALID if the outcome is known; null if the puzzle is not in the cache.
+     */
+    SolveResult.Status get(int[] canonical, int[] solution) {
+        Key key = new Key(canonical);
+        Segment segment = segmentOf(key);
+        long[] value;
+        synchronized (segment) {
+            value = segment.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (value == INVALID)
+            return SolveResult.Status.INVALID;
+        for (int i = 0; i < solution.length; ++i) {
+            solution[i] = (int) (value[i >>> 4] >>> (4 * (i & 15))) & 0xF;
+        }
+        return SolveResult.Status.SOLVED;
+    }
+
+    /**
+     * Remembers the outcome of a puzzle.
+     *
+     * @param canonical the canonical form of the puzzle.
+     * @param status    SOLVED or INVALID; other outcomes depend on search limits and are not remembered.
+     * @param solution  the canonical solution when solved; ignored otherwise.
+     */
+    void put(int[] canonical, SolveResult.Status status, int[] solution) {
+        long[] value;
+        if (status == SolveResult.Status.SOLVED)
+            value = pack(solution);
+        else if (status == SolveResult.Status.INVALID)
+            value = INVALID;
+        else
+            return;
+        Key key = new Key(canonical);
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+
+    /**
+     * @return the number of puzzles in the cache.
+     */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of lookups that found the puzzle.
+     */
+    long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that did not find the puzzle.
+     */
+    long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return a one-line summary of the cache use.
+     */
+    String summary() {
+        long hits = getHits(), lookups = hits + getMisses();
+        return String.format("Cache: %d hits of %d lookups (%.1f%%), %d of %d entries used, %d evicted",
+                hits, lookups, lookups > 0 ? 100.0 * hits / lookups : 0.0, size(), capacity, evictions.sum());
+    }
+}
@@ -0,0 +1,39 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * Receives the intermediate steps of a solve; used by the GUI to animate the grid and print its logs.
+ * <br>All callbacks run on the solving thread.
+ */
+public interface SolveListener {
+    /**
+     * Called after every propagation pass.
+     *
+     * @param engine the engine doing the solve; can be queried for the current candidates.
+     */
+    void stepped(PropagationEngine engine);
+
+    /**
+     * Called when a logical technique makes progress: once per cell confirmed by a single, and once per application of
+     * any other technique. Does nothing unless overridden.
+     *
+     * @param engine    the engine doing the solve.
+     * @param technique the name of the technique, e.g. PropagationEngine.NAKED_SINGLE or "X-Wing".
+     */
+    default void deduced(PropagationEngine engine, String technique) {
+    }
+
+    /**
+     * Called when the engine makes a guess.
+     *
+     * @param engine    the engine doing the solve.
+     * @param row       the row index of the guessed cell.
+     * @param col       the column index of the guessed cell.
+     * @param corrected true if an earlier guess at the same cell turned out to be wrong and the next candidate is tried.
+     */
+    void guessed(PropagationEngine engine, int row, int col, boolean corrected);
+
+    /**
+     * Called when every candidate tried at a branch cell has failed and the engine backtracks to the guess before it.
+     */
+    void backtracked();
+}
@@ -0,0 +1,201 @@
+package com.kabirkanha.sudoku;
+
+import java.io.PrintStream;
+import java.util.Locale;
+
+/**
+ * This class prints the colour coded logs of a solve at a chosen level of detail.
+ * <br>Every method checks the level before doing anything else, so a disabled level costs one comparison: no strings
+ * are built and no candidates are compared or copied.
+ * <br>It can be attached to any PropagationEngine as its listener; the GUI forwards its own listener calls to it.
+ * <br>A log keeps a copy of the last printed candidates, so one instance must only watch one solve at a time.
+ */
+class SolveLog implements SolveListener {
+    /**
+     * The levels of detail, from none to everything.
+     */
+    enum Level {
+        /**
+         * Nothing is printed.
+         */
+        OFF,
+        /**
+         * The outcome and statistics of every solve.
+         */
+        SUMMARY,
+        /**
+         * Also every guess, backtrack and use of a deduction stage.
+         */
+        STEP,
+        /**
+         * Also every single and the candidates of every cell whenever they change.
+         */
+        FULL
+    }
+
+    /**
+     * The level of detail.
+     */
+    private final Level level;
+
+    /**
+     * Where the logs go.
+     */
+    private final PrintStream out;
+
+    /**
+     * The size of the grid the last candidates were printed for; 0 before the first print.
+     */
+    private int size = 0;
+
+    /**
+     * Stores the last printed candidates of the cells, as bitmasks, to avoid duplicate printing of the same stage in the console.
+     */
+    private long[] cellSetsChange = new long[0];
+
+    /**
+     * Constructor for the SolveLog class.
+     *
+     * @param level the level of detail.
+     * @param out   where the logs go, e.g. System.out.
+     */
+    SolveLog(Level level, PrintStream out) {
+        this.level = level;
+        this.out = out;
+    }
+
+    /**
+     * Parses a level name.
+     *
+     * @param name the name, e.g. "step"; case does not matter.
+     * @return the level.
+     * @throws IllegalArgumentException if there is no such level.
+     */
+    static Level levelOf(String name) {
+        try {
+            return Level.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown log level " + name + "; expected off, summary, step or full");
+        }
+    }
+
+    /**
+     * Forgets the last printed candidates, so that the next solve prints its first state in full.
+     */
+    void reset() {
+        size = 0;
+    }
+
+    @Override
+    public void stepped(PropagationEngine engine) {
+        if (level != Level.FULL)
+            return;
+        printSets(engine);
+    }
+
+    @Override
+    public void deduced(PropagationEngine engine, String technique) {
+        if (level.compareTo(Level.STEP) < 0)
+            return;
+        if (level == Level.FULL || (!technique.equals(PropagationEngine.NAKED_SINGLE) && !technique.equals(PropagationEngine.HIDDEN_SINGLE)))
+            out.println(ConsoleColors.CYAN + "\t" + technique + ConsoleColors.RESET);
+    }
+
+    @Override
+    public void guessed(PropagationEngine engine, int row, int col, boolean corrected) {
+        if (level.compareTo(Level.STEP) < 0)
+            return;
+        if (corrected)
+            out.println(ConsoleColors.YELLOW_BOLD + "\n\tCorrecting the incorrect guess at cell (" + (row + 1) + "," + (col + 1) + ")" + ConsoleColors.RESET);
+        else
+            out.println(ConsoleColors.YELLOW_BOLD + "\n\tMaking a guess at cell (" + (row + 1) + "," + (col + 1) + ")" + ConsoleColors.RESET);
+        if (level == Level.FULL)
+            printSets(engine);
+    }
+
+    @Override
+    public void backtracked() {
+        if (level.compareTo(Level.STEP) < 0)
+            return;
+        out.println(ConsoleColors.RED_BOLD + "\n\tBACKTRACK!" + ConsoleColors.RESET);
+    }
+
+    /**
+     * Logs the end of a solve.
+     *
+     * @param engine the engine that did the solve; its final candidates are printed at FULL.
+     * @param result the result of the solve.
+     */
+    void finished(PropagationEngine engine, SolveResult result) {
+        if (level == Level.OFF)
+            return;
+        if (result.isSolved()) {
+            out.println(ConsoleColors.GREEN_BOLD + "\nSOLVE COMPLETED." + ConsoleColors.RESET);
+            out.println(ConsoleColors.RED + result.getStats() + ConsoleColors.RESET);
+            if (level == Level.FULL)
+                printSets(engine);
+        } else {
+            out.println(ConsoleColors.RED_BOLD + "\nSOLVE ABORTED." + ConsoleColors.RESET);
+        }
+    }
+
+    /**
+     * Print the contents of the sets on the console, unless they are the same as last time.
+     *
+     * @param engine the engine whose candidates are printed.
+     */
+    private void printSets(PropagationEngine engine) {
+        int size = engine.getSize();
+        if (size != this.size) {
+            this.size = size;
+            cellSetsChange = new long[size * size];
+        }
+        boolean flag = false;
+        for (int i = 0; i < size && !flag; ++i) {
+            for (int j = 0; j < size; ++j) {
+                if (engine.getCandidates(i, j) != cellSetsChange[i * size + j]) {
+                    flag = true;
+                    break;
+                }
+            }
+        }
+        if (!flag)
+            return;
+
+        for (int i = 0; i < size; ++i) {
+            for (int j = 0; j < size; ++j) {
+                cellSetsChange[i * size + j] = engine.getCandidates(i, j);
+            }
+        }
+        out.println(ConsoleColors.BLUE_UNDERLINED + "\nCurrent Status:" + ConsoleColors.RESET);
+        for (int i = 0; i < size; ++i) {
+            for (int j = 0; j < size; ++j) {
+                long mask = cellSetsChange[i * size + j];
+                if (mask == 0)
+                    out.println(ConsoleColors.RED_BOLD + (i + 1) + "," + (j + 1) + " -> " + formatCandidates(mask) + ConsoleColors.RESET);
+                else if (Long.bitCount(mask) == 1)
+                    out.println(ConsoleColors.GREEN + (i + 1) + "," + (j + 1) + " -> " + formatCandidates(mask) + ConsoleColors.RESET);
+                else
+                    out.println((i + 1) + "," + (j + 1) + " -> " + formatCandidates(mask));
+            }
+        }
+    }
+
+    /**
+     * Formats a bitmask of candidates the way a set of them would be printed, e.g. [1, 5, 9].
+     *
+     * @param mask the bitmask in which bit (k - 1) is set if k is a candidate
+     * @return the formatted candidates
+     */
+    private String formatCandidates(long mask) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int k = 1; k <= size; ++k) {
+            if ((mask & CandidateStore.bit(k)) != 0) {
+                if (sb.length() > 1)
+                    sb.append(", ");
+                sb.append(k);
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,94 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * This class holds the outcome of a single solve.
+ */
+public final class SolveResult {
+    /**
+     * The possible outcomes of a solve.
+     */
+    public enum Status {
+        /**
+         * The puzzle was solved; the solution is available.
+         */
+        SOLVED,
+        /**
+         * The puzzle has no solution, either because of contradictory givens or because the search ran out of options.
+         */
+        INVALID,
+        /**
+         * The search hit its depth or node limit, or was cancelled, before it could finish.
+         */
+        ABORTED
+    }
+
+    /**
+     * The outcome of the solve.
+     */
+    private final Status status;
+
+    /**
+     * The solved grid in row-major order; null unless the puzzle was solved.
+     */
+    private final int[] solution;
+
+    /**
+     * The statistics of the solve.
+     */
+    private final SolveStats stats;
+
+    /**
+     * Constructor for the SolveResult class.
+     *
+     * @param status   the outcome of the solve.
+     * @param solution the solved grid, or null if there is none.
+     * @param stats    the statistics of the solve.
+     */
+    SolveResult(Status status, int[] solution, SolveStats stats) {
+        this.status = status;
+        this.solution = solution;
+        this.stats = stats;
+    }
+
+    /**
+     * @return the outcome of the solve.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true if the puzzle was solved.
+     */
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    /**
+     * @return the solved grid in row-major order, or null if the puzzle was not solved.
+     */
+    public int[] getSolution() {
+        return solution;
+    }
+
+    /**
+     * @return the number of backtracks needed during the solve.
+     */
+    public int getBacktracks() {
+        return stats.getBacktracks();
+    }
+
+    /**
+     * @return the number of search nodes visited during the solve.
+     */
+    public long getNodes() {
+        return stats.getNodes();
+    }
+
+    /**
+     * @return the statistics of the solve.
+     */
+    public SolveStats getStats() {
+        return stats;
+    }
+}
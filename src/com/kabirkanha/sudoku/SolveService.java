@@ -0,0 +1,684 @@
+package com.kabirkanha.sudoku;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class serves solving, counting and grading over HTTP with a JSON API, using the server built into the JDK.
+ * <br>POST /solve, /count and /grade take {"puzzle": ...}, where a puzzle is a one-line string as in batch mode or an
+ * array of the cells in row-major order (0 for an empty cell); /count also takes an optional "limit" (default 2).
+ * POST /batch/solve, /batch/count and /batch/grade take {"puzzles": [...]} and answer {"results": [...]} in the same
+ * order. GET /metrics reports the request counts, throughput and latencies of every endpoint.
+ * <br>Requests are handled on a fixed pool of threads, but at most a given number of them solve at once; the others
+ * wait for a permit, and are turned away with 503 if none frees up before their deadline. Every request has a deadline
+ * from its arrival: a timer raises the stop flag of the engine working on it, so a single puzzle past its deadline gets
+ * 504 and the remaining puzzles of a batch get the status TIMEOUT.
+ * <br>Every handler thread keeps its own engines and graders, created per grid size on first use, as in
+ * ParallelBatchSolver; a SolutionCache, if given, is shared by all of them.
+ */
+final class SolveService {
+    /**
+     * The largest request body accepted, in bytes.
+     */
+    private static final int MAX_BODY = 16 << 20;
+
+    /**
+     * The solution count limit when a count request gives none.
+     */
+    private static final int DEFAULT_COUNT_LIMIT = 2;
+
+    /**
+     * The number of handler threads per solving permit, so that waiting requests do not hold up reading new ones.
+     */
+    private static final int HANDLERS_PER_PERMIT = 4;
+
+    /**
+     * What an endpoint does with its puzzles.
+     */
+    private enum Operation {
+        SOLVE, COUNT, GRADE
+    }
+
+    /**
+     * One path of the API and its statistics.
+     */
+    private static final class Endpoint {
+        /**
+         * The HTTP method it answers to.
+         */
+        final String method;
+
+        /**
+         * What it does with its puzzles; null for the metrics.
+         */
+        final Operation operation;
+
+        /**
+         * Whether it takes an array of puzzles.
+         */
+        final boolean batch;
+
+        /**
+         * The number of requests answered, puzzles handled, requests answered with an error, requests turned away for
+         * lack of a permit, and requests that ran out of time.
+         */
+        final LongAdder requests = new LongAdder(), puzzles = new LongAdder(), errors = new LongAdder(),
+                rejected = new LongAdder(), timeouts = new LongAdder();
+
+        /**
+         * The time taken by every request, from arrival to the end of the response.
+         */
+        final LatencyHistogram latencies = new LatencyHistogram();
+
+        /**
+         * Constructor for the Endpoint class.
+         *
+         * @param method    the HTTP method it answers to.
+         * @param operation what it does with its puzzles; null for the metrics.
+         * @param batch     whether it takes an array of puzzles.
+         */
+        Endpoint(String method, Operation operation, boolean batch) {
+            this.method = method;
+            this.operation = operation;
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * The working state of one handler thread.
+     */
+    private final class Worker {
+        /**
+         * One engine per grid size, created when the first puzzle of that size is seen.
+         */
+        final PropagationEngine[] engines = new PropagationEngine[PropagationEngine.MAX_SIZE + 1];
+
+        /**
+         * What solves each size: its engine, or a CachingEngine around it.
+         */
+        final Engine[] solvers = new Engine[PropagationEngine.MAX_SIZE + 1];
+
+        /**
+         * One grader per grid size, created when the first puzzle of that size is graded.
+         */
+        final Grader[] graders = new Grader[PropagationEngine.MAX_SIZE + 1];
+
+        /**
+         * Returns the engine of a size, creating it on first use.
+         *
+         * @param size the size of the grid.
+         * @return the engine.
+         */
+        PropagationEngine engine(int size) {
+            if (engines[size] == null) {
+                engines[size] = new PropagationEngine(size);
+                solvers[size] = cache != null ? new CachingEngine(engines[size], cache) : engines[size];
+            }
+            return engines[size];
+        }
+
+        /**
+         * Returns the grader of a size, creating it on first use.
+         *
+         * @param size the size of the grid.
+         * @return the grader.
+         */
+        Grader grader(int size) {
+            if (graders[size] == null)
+                graders[size] = new Grader(size);
+            return graders[size];
+        }
+    }
+
+    /**
+     * The server.
+     */
+    private final HttpServer server;
+
+    /**
+     * Runs the request handlers.
+     */
+    private final ExecutorService handlers;
+
+    /**
+     * Raises the stop flags of requests that reach their deadline.
+     */
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * One permit per request allowed to solve at once.
+     */
+    private final Semaphore permits;
+
+    /**
+     * The number of requests allowed to solve at once.
+     */
+    private final int concurrency;
+
+    /**
+     * The time a request may take from its arrival, in milliseconds.
+     */
+    private final long timeoutMillis;
+
+    /**
+     * The cache the engines look puzzles up in; null for none.
+     */
+    private final SolutionCache cache;
+
+    /**
+     * The state of every handler thread.
+     */
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    /**
+     * The endpoints by path.
+     */
+    private final Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    /**
+     * Receives the statistics of every puzzle solved, counted or graded.
+     */
+    private final SolverMetrics metrics = SolverMetrics.global();
+
+    /**
+     * The number of requests answered, whatever the path.
+     */
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * The time taken by every request, whatever the path.
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * The number of requests being handled.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * When the service started, from System.nanoTime().
+     */
+    private long started;
+
+    /**
+     * Constructor for the SolveService class; the service does not answer until started.
+     *
+     * @param address       the address to listen on.
+     * @param concurrency   the number of requests allowed to solve at once.
+     * @param timeoutMillis the time a request may take from its arrival, in milliseconds.
+     * @param cache         the cache to look solved puzzles up in; null for none.
+     * @throws IOException if the address cannot be bound.
+     */
+    SolveService(InetSocketAddress address, int concurrency, long timeoutMillis, SolutionCache cache) throws IOException {
+        if (concurrency < 1)
+            throw new IllegalArgumentException("Concurrency must be positive");
+        if (timeoutMillis < 1)
+            throw new IllegalArgumentException("Timeout must be positive");
+        this.concurrency = concurrency;
+        this.timeoutMillis = timeoutMillis;
+        this.cache = cache;
+        permits = new Semaphore(concurrency, true);
+
+        endpoints.put("/solve", new Endpoint("POST", Operation.SOLVE, false));
+        endpoints.put("/count", new Endpoint("POST", Operation.COUNT, false));
+        endpoints.put("/grade", new Endpoint("POST", Operation.GRADE, false));
+        endpoints.put("/batch/solve", new Endpoint("POST", Operation.SOLVE, true));
+        endpoints.put("/batch/count", new Endpoint("POST", Operation.COUNT, true));
+        endpoints.put("/batch/grade", new Endpoint("POST", Operation.GRADE, true));
+        endpoints.put("/metrics", new Endpoint("GET", null, false));
+
+        AtomicInteger threads = new AtomicInteger();
+        handlers = Executors.newFixedThreadPool(concurrency * HANDLERS_PER_PERMIT,
+                task -> new Thread(task, "solve-service-" + threads.incrementAndGet()));
+        timer = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "solve-service-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //Most requests finish long before their deadline; drop their alarms at once instead of keeping them queued.
+        timer.setRemoveOnCancelPolicy(true);
+
+        server = HttpServer.create(address, 0);
+        server.setExecutor(handlers);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    void start() {
+        started = System.nanoTime();
+        server.start();
+    }
+
+    /**
+     * Stops the service, giving the requests being handled up to a second to finish.
+     */
+    void stop() {
+        server.stop(1);
+        handlers.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * @return the address the service listens on.
+     */
+    InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Answers one request.
+     *
+     * @param exchange the request and its response.
+     * @throws IOException if the response cannot be sent.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        Endpoint endpoint = endpoints.get(exchange.getRequestURI().getPath());
+        StringBuilder out = new StringBuilder();
+        int code;
+        inFlight.incrementAndGet();
+        try {
+            if (endpoint == null) {
+                code = error(404, "No such endpoint", out);
+            } else if (!exchange.getRequestMethod().equals(endpoint.method)) {
+                exchange.getResponseHeaders().set("Allow", endpoint.method);
+                code = error(405, "Use " + endpoint.method, out);
+            } else if (endpoint.operation == null) {
+                code = reportMetrics(out);
+            } else {
+                code = serve(endpoint, exchange, start, out);
+            }
+        } catch (IllegalArgumentException e) {
+            out.setLength(0);
+            code = error(400, e.getMessage(), out);
+        } catch (InterruptedException e) {
+            //The service is stopping.
+            Thread.currentThread().interrupt();
+            out.setLength(0);
+            code = error(503, "Shutting down", out);
+        } catch (RuntimeException e) {
+            out.setLength(0);
+            code = error(500, String.valueOf(e), out);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+
+        try {
+            byte[] body = out.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(code, body.length);
+            try (OutputStream stream = exchange.getResponseBody()) {
+                stream.write(body);
+            }
+        } finally {
+            exchange.close();
+            long nanos = System.nanoTime() - start;
+            requests.increment();
+            latencies.record(nanos);
+            if (endpoint != null) {
+                endpoint.requests.increment();
+                endpoint.latencies.record(nanos);
+                if (code >= 400)
+                    endpoint.errors.increment();
+            }
+        }
+    }
+
+    /**
+     * Answers a request for one of the puzzle endpoints.
+     *
+     * @param endpoint the endpoint.
+     * @param exchange the request and its response.
+     * @param start    when the request arrived, from System.nanoTime().
+     * @param out      receives the response body.
+     * @return the HTTP status code.
+     * @throws IOException          if the request body cannot be read.
+     * @throws InterruptedException if interrupted while waiting for a permit.
+     */
+    private int serve(Endpoint endpoint, HttpExchange exchange, long start, StringBuilder out) throws IOException, InterruptedException {
+        String body = readBody(exchange);
+        if (body == null)
+            return error(413, "The request body is larger than " + MAX_BODY + " bytes", out);
+        Object request = Json.parse(body);
+        if (!(request instanceof Map))
+            throw new IllegalArgumentException("The request must be a JSON object");
+        Map<?, ?> fields = (Map<?, ?>) request;
+        int limit = endpoint.operation == Operation.COUNT ? countLimit(fields.get("limit")) : 0;
+        List<?> puzzles;
+        if (endpoint.batch) {
+            if (!(fields.get("puzzles") instanceof List))
+                throw new IllegalArgumentException("Expected an array of puzzles in \"puzzles\"");
+            puzzles = (List<?>) fields.get("puzzles");
+        } else {
+            //A bad puzzle is answered at once, without waiting for a permit.
+            puzzles = Collections.singletonList(parsePuzzle(fields.get("puzzle")));
+        }
+
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            endpoint.rejected.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            return error(503, "All " + concurrency + " solvers are busy", out);
+        }
+        AtomicBoolean stop = new AtomicBoolean();
+        ScheduledFuture<?> alarm = timer.schedule(() -> stop.set(true), deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        try {
+            Worker worker = workers.get();
+            if (!endpoint.batch) {
+                endpoint.puzzles.increment();
+                if (answer(worker, endpoint.operation, (int[]) puzzles.get(0), fields.get("puzzle") instanceof String, limit, stop, out))
+                    return 200;
+                endpoint.timeouts.increment();
+                out.setLength(0);
+                return error(504, "Timed out after " + timeoutMillis + " ms", out);
+            }
+
+            boolean timedOut = false;
+            out.append("{\"results\":[");
+            for (int i = 0; i < puzzles.size(); ++i) {
+                if (i > 0)
+                    out.append(',');
+                endpoint.puzzles.increment();
+                int mark = out.length();
+                int[] puzzle;
+                try {
+                    puzzle = parsePuzzle(puzzles.get(i));
+                } catch (IllegalArgumentException e) {
+                    metrics.recordMalformed();
+                    out.append("{\"error\":");
+                    Json.quote(e.getMessage(), out);
+                    out.append('}');
+                    continue;
+                }
+                if (stop.get() || !answer(worker, endpoint.operation, puzzle, puzzles.get(i) instanceof String, limit, stop, out)) {
+                    out.setLength(mark);
+                    out.append("{\"status\":\"TIMEOUT\"}");
+                    timedOut = true;
+                }
+            }
+            out.append("]}");
+            if (timedOut)
+                endpoint.timeouts.increment();
+            return 200;
+        } finally {
+            alarm.cancel(false);
+            permits.release();
+        }
+    }
+
+    /**
+     * Solves, counts or grades one puzzle and appends its result object.
+     *
+     * @param worker    the handler thread's own state.
+     * @param operation what to do.
+     * @param puzzle    the givens in row-major order; not modified.
+     * @param text      true to write a solution as a one-line string rather than an array.
+     * @param limit     the number of solutions to stop counting at.
+     * @param stop      the flag raised at the deadline.
+     * @param out       receives the result.
+     * @return false if the deadline passed first, in which case out holds nothing useful.
+     */
+    private boolean answer(Worker worker, Operation operation, int[] puzzle, boolean text, int limit, AtomicBoolean stop, StringBuilder out) {
+        int size = PropagationEngine.sizeForCells(puzzle.length);
+        long start = System.nanoTime();
+        switch (operation) {
+            case SOLVE: {
+                PropagationEngine engine = worker.engine(size);
+                SolveResult result;
+                engine.setStopFlag(stop);
+                try {
+                    result = worker.solvers[size].solve(puzzle);
+                } finally {
+                    engine.setStopFlag(null);
+                }
+                metrics.record(result);
+                if (result.getStatus() == SolveResult.Status.ABORTED && stop.get())
+                    return false;
+                out.append("{\"status\":\"").append(result.getStatus()).append('"');
+                if (result.isSolved()) {
+                    out.append(",\"solution\":");
+                    appendGrid(result.getSolution(), text, out);
+                }
+                break;
+            }
+            case COUNT: {
+                PropagationEngine engine = worker.engine(size);
+                int count;
+                engine.setStopFlag(stop);
+                try {
+                    count = engine.countSolutions(puzzle, limit);
+                } finally {
+                    engine.setStopFlag(null);
+                }
+                //A count with no solution is INVALID, one that stopped early ABORTED.
+                metrics.record(count < 0 ? SolveResult.Status.ABORTED : count == 0 ? SolveResult.Status.INVALID : SolveResult.Status.SOLVED,
+                        System.nanoTime() - start);
+                if (count < 0) {
+                    if (stop.get())
+                        return false;
+                    out.append("{\"status\":\"ABORTED\"");
+                } else {
+                    out.append("{\"solutions\":").append(count).append(",\"unique\":").append(count == 1);
+                }
+                break;
+            }
+            default: {
+                Grader grader = worker.grader(size);
+                Grade grade;
+                grader.setStopFlag(stop);
+                try {
+                    grade = grader.grade(puzzle);
+                } finally {
+                    grader.setStopFlag(null);
+                }
+                metrics.record(grade.getStatus(), System.nanoTime() - start);
+                if (grade.getStatus() == SolveResult.Status.ABORTED && stop.get())
+                    return false;
+                out.append("{\"status\":\"").append(grade.getStatus()).append('"');
+                if (grade.getStatus() == SolveResult.Status.SOLVED) {
+                    out.append(",\"rating\":").append(grade.getRating())
+                            .append(",\"level\":\"").append(grade.getLevel()).append("\",\"techniques\":{");
+                    for (int i = 0; i < grade.getTechniqueCount(); ++i) {
+                        if (i > 0)
+                            out.append(',');
+                        Json.quote(grade.getTechnique(i), out);
+                        out.append(':').append(grade.getUses(i));
+                    }
+                    out.append("},\"guesses\":").append(grade.getGuesses()).append(",\"guessDepth\":").append(grade.getGuessDepth());
+                }
+            }
+        }
+        out.append(",\"micros\":").append((System.nanoTime() - start) / 1000).append('}');
+        return true;
+    }
+
+    /**
+     * Reads a puzzle from a request.
+     *
+     * @param value a one-line string, or an array of the cells in row-major order.
+     * @return the givens.
+     * @throws IllegalArgumentException if the value is not a puzzle.
+     */
+    private static int[] parsePuzzle(Object value) {
+        if (value instanceof String) {
+            String line = ((String) value).trim();
+            int size = PuzzleFormat.sizeForLength(line.length());
+            int[] cells = new int[size * size];
+            PuzzleFormat.parseLine(line, cells);
+            return cells;
+        }
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            int size = PropagationEngine.sizeForCells(list.size());
+            int[] cells = new int[list.size()];
+            for (int i = 0; i < cells.length; ++i) {
+                Object cell = list.get(i);
+                if (!(cell instanceof Long) || (Long) cell < 0 || (Long) cell > size)
+                    throw new IllegalArgumentException("Cell " + i + " must be a whole number from 0 to " + size);
+                cells[i] = ((Long) cell).intValue();
+            }
+            return cells;
+        }
+        throw new IllegalArgumentException("A puzzle must be a string or an array of cells");
+    }
+
+    /**
+     * Reads the solution count limit of a count request.
+     *
+     * @param value the limit, or null for the default.
+     * @return the limit.
+     * @throws IllegalArgumentException if the value is not a positive whole number.
+     */
+    private static int countLimit(Object value) {
+        if (value == null)
+            return DEFAULT_COUNT_LIMIT;
+        if (!(value instanceof Long) || (Long) value < 1)
+            throw new IllegalArgumentException("\"limit\" must be a positive whole number");
+        return (int) Math.min((Long) value, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads the body of a request.
+     *
+     * @param exchange the request.
+     * @return the body, or null if it is larger than MAX_BODY.
+     * @throws IOException if reading fails.
+     */
+    private static String readBody(HttpExchange exchange) throws IOException {
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null && Long.parseLong(length.trim()) > MAX_BODY)
+            return null;
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                if (body.size() + n > MAX_BODY)
+                    return null;
+                body.write(buffer, 0, n);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a grid as a one-line string or an array of cells.
+     *
+     * @param cells the grid in row-major order.
+     * @param text  true for a string; grids too large for one line are always written as arrays.
+     * @param out   the builder to append to.
+     */
+    private static void appendGrid(int[] cells, boolean text, StringBuilder out) {
+        if (text && cells.length <= PuzzleFormat.MAX_LINE_SIZE * PuzzleFormat.MAX_LINE_SIZE) {
+            out.append('"');
+            PuzzleFormat.appendLine(cells, out);
+            out.append('"');
+            return;
+        }
+        out.append('[');
+        for (int i = 0; i < cells.length; ++i) {
+            if (i > 0)
+                out.append(',');
+            out.append(cells[i]);
+        }
+        out.append(']');
+    }
+
+    /**
+     * Writes an error body.
+     *
+     * @param code    the HTTP status code.
+     * @param message what went wrong.
+     * @param out     receives the body.
+     * @return the code.
+     */
+    private static int error(int code, String message, StringBuilder out) {
+        out.append("{\"error\":");
+        Json.quote(message, out);
+        out.append('}');
+        return code;
+    }
+
+    /**
+     * Writes the metrics: overall and per-endpoint request counts, throughput since the start and latencies, the solver
+     * metrics and the cache statistics.
+     *
+     * @param out receives the body.
+     * @return the HTTP status code.
+     */
+    private int reportMetrics(StringBuilder out) {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        out.append(String.format(Locale.ROOT, "{\"uptimeSeconds\":%.1f,\"concurrency\":%d,\"timeoutMillis\":%d,\"inFlight\":%d,",
+                seconds, concurrency, timeoutMillis, inFlight.get()));
+        appendLatencies(requests.sum(), seconds, latencies, out);
+        out.append(",\"endpoints\":{");
+        boolean first = true;
+        for (Map.Entry<String, Endpoint> entry : endpoints.entrySet()) {
+            Endpoint endpoint = entry.getValue();
+            if (!first)
+                out.append(',');
+            first = false;
+            Json.quote(entry.getKey(), out);
+            out.append(":{");
+            appendLatencies(endpoint.requests.sum(), seconds, endpoint.latencies, out);
+            out.append(",\"puzzles\":").append(endpoint.puzzles.sum())
+                    .append(",\"errors\":").append(endpoint.errors.sum())
+                    .append(",\"rejected\":").append(endpoint.rejected.sum())
+                    .append(",\"timeouts\":").append(endpoint.timeouts.sum()).append('}');
+        }
+        out.append("},\"solver\":{\"solves\":").append(metrics.getSolves())
+                .append(",\"solved\":").append(metrics.getSolved())
+                .append(",\"invalid\":").append(metrics.getInvalid())
+                .append(",\"aborted\":").append(metrics.getAborted())
+                .append(",\"malformed\":").append(metrics.getMalformed())
+                .append(String.format(Locale.ROOT, ",\"meanMicros\":%.1f", metrics.getMeanMicros()))
+                .append(",\"p50Micros\":").append(metrics.getP50Micros())
+                .append(",\"p99Micros\":").append(metrics.getP99Micros())
+                .append(",\"maxMicros\":").append(metrics.getMaxMicros()).append('}');
+        if (cache != null) {
+            out.append(",\"cache\":{\"hits\":").append(cache.getHits())
+                    .append(",\"misses\":").append(cache.getMisses())
+                    .append(",\"entries\":").append(cache.size()).append('}');
+        }
+        out.append('}');
+        return 200;
+    }
+
+    /**
+     * Appends the request count, throughput and latencies of a set of requests.
+     *
+     * @param count     the number of requests.
+     * @param seconds   the time since the start.
+     * @param latencies their latencies.
+     * @param out       the builder to append to.
+     */
+    private static void appendLatencies(long count, double seconds, LatencyHistogram latencies, StringBuilder out) {
+        out.append(String.format(Locale.ROOT, "\"requests\":%d,\"throughput\":%.2f,\"meanMicros\":%.1f,\"p50Micros\":%d,\"p99Micros\":%d,\"maxMicros\":%d",
+                count, seconds > 0 ? count / seconds : 0.0, latencies.mean() / 1000,
+                TimeUnit.NANOSECONDS.toMicros(latencies.percentile(50)), TimeUnit.NANOSECONDS.toMicros(latencies.percentile(99)),
+                TimeUnit.NANOSECONDS.toMicros(latencies.max())));
+    }
+}
@@ -0,0 +1,152 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * This class holds the statistics of a single solve: how much searching and propagating it took, which techniques made
+ * progress and how long it ran.
+ */
+public final class SolveStats {
+    /**
+     * The number of search nodes visited.
+     */
+    private final long nodes;
+
+    /**
+     * The number of guesses made, including those that replaced a wrong guess.
+     */
+    private final long guesses;
+
+    /**
+     * The number of backtracks.
+     */
+    private final int backtracks;
+
+    /**
+     * The number of propagation passes.
+     */
+    private final long passes;
+
+    /**
+     * The names of the techniques the engine knows, in order of cost; shared with the engine, never modified.
+     */
+    private final String[] techniques;
+
+    /**
+     * How often each technique made progress, in the same order as techniques.
+     */
+    private final long[] uses;
+
+    /**
+     * The wall-clock time of the solve, in nanoseconds.
+     */
+    private final long wallNanos;
+
+    /**
+     * Constructor for the SolveStats class.
+     *
+     * @param nodes      the number of search nodes visited.
+     * @param guesses    the number of guesses made.
+     * @param backtracks the number of backtracks.
+     * @param passes     the number of propagation passes.
+     * @param techniques the names of the techniques the engine knows.
+     * @param uses       how often each technique made progress; owned by the new object.
+     * @param wallNanos  the wall-clock time of the solve, in nanoseconds.
+     */
+    SolveStats(long nodes, long guesses, int backtracks, long passes, String[] techniques, long[] uses, long wallNanos) {
+        this.nodes = nodes;
+        this.guesses = guesses;
+        this.backtracks = backtracks;
+        this.passes = passes;
+        this.techniques = techniques;
+        this.uses = uses;
+        this.wallNanos = wallNanos;
+    }
+
+    /**
+     * Creates the statistics of an engine without propagation or deduction techniques.
+     *
+     * @param nodes      the number of search nodes visited.
+     * @param guesses    the number of guesses made.
+     * @param backtracks the number of backtracks.
+     * @param wallNanos  the wall-clock time of the solve, in nanoseconds.
+     * @return the statistics.
+     */
+    static SolveStats ofSearch(long nodes, long guesses, int backtracks, long wallNanos) {
+        return new SolveStats(nodes, guesses, backtracks, 0, new String[0], new long[0], wallNanos);
+    }
+
+    /**
+     * @return the number of search nodes visited.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the number of guesses made, including those that replaced a wrong guess.
+     */
+    public long getGuesses() {
+        return guesses;
+    }
+
+    /**
+     * @return the number of backtracks.
+     */
+    public int getBacktracks() {
+        return backtracks;
+    }
+
+    /**
+     * @return the number of propagation passes: rounds of updating peers from confirmed cells and looking for only choices.
+     */
+    public long getPropagationPasses() {
+        return passes;
+    }
+
+    /**
+     * @return the number of techniques the engine knows; 0 for engines that only search.
+     */
+    public int getTechniqueCount() {
+        return techniques.length;
+    }
+
+    /**
+     * @param i the index of the technique, from 0 to getTechniqueCount() - 1.
+     * @return the name of the technique, e.g. PropagationEngine.NAKED_SINGLE or "X-Wing".
+     */
+    public String getTechnique(int i) {
+        return techniques[i];
+    }
+
+    /**
+     * @param i the index of the technique, from 0 to getTechniqueCount() - 1.
+     * @return how often the technique made progress: cells confirmed for singles, applications for the other stages.
+     */
+    public long getUses(int i) {
+        return uses[i];
+    }
+
+    /**
+     * @return the wall-clock time of the solve, in nanoseconds.
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * @return a one-line summary, e.g. for logs.
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append("Nodes: ").append(nodes)
+                .append(", Guesses: ").append(guesses)
+                .append(", Backtracks: ").append(backtracks)
+                .append(", Passes: ").append(passes);
+        for (int i = 0; i < techniques.length; ++i) {
+            if (uses[i] > 0)
+                out.append(", ").append(techniques[i]).append(": ").append(uses[i]);
+        }
+        out.append(", Time: ").append(wallNanos / 1000).append(" us");
+        return out.toString();
+    }
+}
@@ -5,11 +5,10 @@ import javax.swing.filechooser.FileFilter;
 import javax.swing.plaf.nimbus.NimbusLookAndFeel;
 import java.awt.*;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Scanner;
-import java.util.Stack;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.SynchronousQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -18,39 +17,55 @@ import java.util.logging.Logger;
  */
 class Solver {
     /**
-     * This is the heuristic; it stores the remaining possible values for each cell.
+     * The headless engine that does the actual solving.
      */
-    private ArrayList<ArrayList<HashSet<Integer>>> cellSets = new ArrayList<>();
+    private final PropagationEngine engine;
 
     /**
-     * Stores the last printed values of the sets to avoid duplicate printing of the same stage in the console.
+     * Prints the logs of every solve on the console.
      */
-    private ArrayList<ArrayList<HashSet<Integer>>> cellSetsChange = new ArrayList<>();
+    private final SolveLog log;
 
     /**
-     * The main frame that contains the Sudoku grid.
+     * How much of every solve is logged; kept for the window NEW GRID opens.
      */
-    private JFrame mainframe = new JFrame();
+    private final SolveLog.Level logLevel;
+
+    /**
+     * Shows one step of the solve per tick; null when solves run at full speed and only the result is shown.
+     */
+    private final Timer animation;
 
     /**
-     * Stack to store the row IDs of cells that have been guessed; helpful while backtracking.
+     * The number of solve steps shown per second, 0 for none; kept for the window NEW GRID opens.
      */
-    private Stack<Integer> rowIds = new Stack<>();
+    private final int fps;
 
     /**
-     * Stack to store the column IDs of cells that have been guessed; helpful while backtracking.
+     * Hands the steps of the solve from the solving thread to the animation timer, one at a time; the solver waits
+     * until the timer has taken a step, so the animation runs at the timer's pace.
      */
-    private Stack<Integer> colIds = new Stack<>();
+    private final SynchronousQueue<int[]> frames = new SynchronousQueue<>();
+
+    /**
+     * The values of the last step handed to the timer; only used by the solving thread.
+     */
+    private int[] lastFrame;
+
+    /**
+     * The main frame that contains the Sudoku grid.
+     */
+    private JFrame mainframe = new JFrame();
 
     /**
      * Sets the size of the whole grid.
      */
-    static final int size = 9;
+    private final int size;
 
     /**
      * Sets the size of one sub-grid.
      */
-    static final int gridSize = (int) (Math.sqrt(size));
+    private final int gridSize;
 
     /**
      * Button to allow file input.
@@ -84,22 +99,12 @@ class Solver {
     /**
      * 2D integer array to store the grid data in numeric form.
      */
-    private int[][] grid = new int[size][size];
-
-    /**
-     * Stores the total number of backtracks, to report after the solve.
-     */
-    private int backtrackCnt = 0;
+    private final int[][] grid;
 
     /**
      * 2D button array for the sudoku grid.
      */
-    private JButton[][] buttons = new JButton[size][size];
-
-    /**
-     * 2D boolean array to store whether a confirmed cell has updated others or not.
-     */
-    private boolean[][] flag = new boolean[size][size];
+    private final JButton[][] buttons;
 
     // Set up the look and feel to make the UI look good.
     static {
@@ -113,9 +118,44 @@ class Solver {
     }
 
     /**
-     * Constructor of this class; calls the solver.
+     * Constructor of this class; calls the solver for a 9x9 grid.
      */
     Solver() {
+        this(PropagationEngine.DEFAULT_SIZE);
+    }
+
+    /**
+     * Constructor of this class; calls the solver with full logs, solving at full speed.
+     *
+     * @param size the size of the whole grid, e.g. 9, 16 or 25.
+     */
+    Solver(int size) {
+        this(size, SolveLog.Level.FULL, 0);
+    }
+
+    /**
+     * Constructor of this class; calls the solver.
+     *
+     * @param size     the size of the whole grid, e.g. 9, 16 or 25.
+     * @param logLevel how much of every solve is logged on the console.
+     * @param fps      the number of solve steps shown per second; 0 to solve at full speed and only show the result.
+     */
+    Solver(int size, SolveLog.Level logLevel, int fps) {
+        if (fps < 0 || fps > 1000)
+            throw new IllegalArgumentException("Frame rate must be between 0 and 1000");
+        this.size = size;
+        this.gridSize = PropagationEngine.subGridSize(size);
+        engine = new PropagationEngine(size);
+        this.logLevel = logLevel;
+        this.fps = fps;
+        log = new SolveLog(logLevel, System.out);
+        animation = fps == 0 ? null : new Timer(1000 / fps, e -> {
+            int[] frame = frames.poll();
+            if (frame != null)
+                showValues(frame);
+        });
+        grid = new int[size][size];
+        buttons = new JButton[size][size];
         start();
     }
 
@@ -123,12 +163,30 @@ class Solver {
      * Starts the execution of the solver.
      */
     private void start() {
-        //Initialise the sets.
-        initialiseSet(cellSets);
-        initialiseSet(cellSetsChange);
+        //Report the intermediate steps of every solve on the grid and the console.
+        engine.setListener(new SolveListener() {
+            @Override
+            public void stepped(PropagationEngine engine) {
+                if (animation != null)
+                    publish();
+                log.stepped(engine);
+            }
 
-        //Add all possible values to the set.
-        addAllValuesToSet();
+            @Override
+            public void deduced(PropagationEngine engine, String technique) {
+                log.deduced(engine, technique);
+            }
+
+            @Override
+            public void guessed(PropagationEngine engine, int row, int col, boolean corrected) {
+                log.guessed(engine, row, col, corrected);
+            }
+
+            @Override
+            public void backtracked() {
+                log.backtracked();
+            }
+        });
 
         //Declare the JPanels.
         JPanel panelSudoku = new JPanel();
@@ -145,6 +203,9 @@ class Solver {
         int lb;
         int rb;
         int bb;
+        //Shrink the cells of large grids so the window still fits on the screen.
+        int cellSize = Math.max(24, Math.min(50, 720 / size));
+        int fontSize = Math.max(10, cellSize / 2);
         for (int i = 0; i < size; i++) {
             bb = isLast(i);
             tb = isFirst(i);
@@ -154,8 +215,8 @@ class Solver {
                 lb = isFirst(j);
                 buttons[i][j].setBorder(BorderFactory.createMatteBorder(tb, lb, bb, rb, Color.DARK_GRAY));
                 buttons[i][j].setText("");
-                buttons[i][j].setPreferredSize(new Dimension(50, 50));
-                buttons[i][j].setFont(new Font("DialogInput", Font.BOLD, 24));
+                buttons[i][j].setPreferredSize(new Dimension(cellSize, cellSize));
+                buttons[i][j].setFont(new Font("DialogInput", Font.BOLD, fontSize));
                 addOnClickListener(buttons[i][j], i, j);
                 panelSudoku.add(buttons[i][j]);
             }
@@ -207,9 +268,6 @@ class Solver {
         //Adding Action Listeners
 
         btn_input.addActionListener(e -> {
-            //Reset everything.
-            addAllValuesToSet();
-
             JFileChooser chooser = new JFileChooser();
 
             //Disable multi-selection of files.
@@ -229,56 +287,33 @@ class Solver {
                         return true;
                     } else {
                         String filename = f.getName().toLowerCase();
-                        return filename.endsWith(".csv");
+                        return filename.endsWith(".csv") || filename.endsWith(".txt");
                     }
                 }
 
                 @Override
                 public String getDescription() {
-                    return "CSV Files (*.csv)";
+                    return "Puzzle Files (*.csv, *.txt)";
                 }
             });
-            Scanner in = null;
-
             if (chooser.showOpenDialog(null) == JFileChooser.APPROVE_OPTION) {
                 File selectedFile = chooser.getSelectedFile();
-                try {
-                    in = new Scanner(selectedFile);
-                } catch (FileNotFoundException e1) {
-                    e1.printStackTrace();
+                //Only the first puzzle of the file is loaded.
+                int[] cells;
+                try (PuzzleReader in = PuzzleReader.open(selectedFile.toPath())) {
+                    cells = in.next() == size ? in.cells() : null;
+                } catch (IOException e1) {
+                    Logger.getLogger(Solver.class.getName()).log(Level.WARNING, "Unable to read " + selectedFile, e1);
+                    cells = null;
                 }
-                for (int i = 0; i < size; ++i) {
-                    int k = 0;
-                    String temp;
-                    if (in != null && in.hasNextLine()) {
-                        temp = in.nextLine();
-                        StringBuilder buildup = new StringBuilder();
-                        for (int j = 0; j < temp.length() && k < size; ++j) {
-                            if (temp.charAt(j) == ',') {
-                                buttons[i][k].setText(buildup.toString());
-                                buildup = new StringBuilder();
-                                k++;
-                            } else {
-                                if (temp.charAt(j) != '0')
-                                    buildup.append(temp.charAt(j));
-                            }
-                            if (j == temp.length() - 1) {
-                                buttons[i][k].setText(buildup.toString());
-                                ++k;
-                                while (k < size) {
-                                    buttons[i][k].setText("");
-                                    ++k;
-                                }
-                            }
-                        }
-                    }
+                if (cells == null) {
+                    JOptionPane.showMessageDialog(mainframe, "The file does not hold a " + size + "x" + size + " puzzle.", "Invalid Input", JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
                 for (int i = 0; i < size; ++i) {
                     for (int j = 0; j < size; ++j) {
-                        if (!(buttons[i][j].getText().equals("")))
-                            grid[i][j] = Integer.parseInt(buttons[i][j].getText());
-                        else
-                            grid[i][j] = 0;
+                        grid[i][j] = cells[i * size + j];
+                        buttons[i][j].setText(grid[i][j] == 0 ? "" : Integer.toString(grid[i][j]));
                     }
                 }
                 if (countGridValues() == size * size)
@@ -288,7 +323,6 @@ class Solver {
 
         btn_edit.addActionListener(e -> {
             Choice.enableButtons(buttons);
-            addAllValuesToSet();
             btn_input.setEnabled(true);
             btn_solve.setEnabled(false);
             btn_edit.setEnabled(false);
@@ -318,62 +352,68 @@ class Solver {
         btn_solve.addActionListener(e -> {
             if (checkIfEnough()) {
                 btn_reset.setEnabled(true);
-                //Update cell sets from input.
-                updateFromGrid();
-                backtrackCnt = 0;
-                try {
-                    SwingWorker<String, String> sw = new SwingWorker<>() {
-                        @Override
-                        protected String doInBackground() {
-                            btn_reset.setEnabled(false);
-                            btn_new.setEnabled(false);
-                            btn_edit.setEnabled(false);
-                            btn_solve.setEnabled(false);
-                            if (solveWithBacktrack()) {
-                                System.out.println(ConsoleColors.GREEN_BOLD + "\nSOLVE COMPLETED." + ConsoleColors.RESET);
-                                System.out.println(ConsoleColors.RED + "Backtracks: " + backtrackCnt + ConsoleColors.RESET);
-                                printSets();
-                                btn_new.setEnabled(true);
-                                btn_reset.setEnabled(true);
-                                btn_verify.setEnabled(true);
-                                btn_edit.setEnabled(true);
-                                btn_solve.setEnabled(true);
-                            } else {
-                                getGrid();
-                                System.out.println(ConsoleColors.RED_BOLD + "\nSOLVE ABORTED." + ConsoleColors.RESET);
-                                JOptionPane.showMessageDialog(mainframe, "Invalid Input.\nSOLVE ABORTED.", "ERROR", JOptionPane.ERROR_MESSAGE);
-                                //Revert to last locked state.
-                                getGrid();
-
-                                //Reset all cell sets.
-                                addAllValuesToSet();
+                //Copy the locked grid for the engine.
+                int[] givens = new int[size * size];
+                for (int i = 0; i < size; ++i) {
+                    for (int j = 0; j < size; ++j) {
+                        givens[i * size + j] = grid[i][j];
+                    }
+                }
+                log.reset();
+                btn_reset.setEnabled(false);
+                btn_new.setEnabled(false);
+                btn_edit.setEnabled(false);
+                btn_solve.setEnabled(false);
+                if (animation != null) {
+                    lastFrame = null;
+                    animation.start();
+                }
+                //Solve off the event thread; the animation timer and done() update the grid on it.
+                SwingWorker<SolveResult, Void> sw = new SwingWorker<>() {
+                    @Override
+                    protected SolveResult doInBackground() {
+                        SolveResult result = engine.solve(givens);
+                        log.finished(engine, result);
+                        return result;
+                    }
 
-                                btn_edit.setEnabled(true);
-                            }
-                            return "";
+                    @Override
+                    protected void done() {
+                        if (animation != null)
+                            animation.stop();
+                        SolveResult result;
+                        try {
+                            result = get();
+                        } catch (InterruptedException | ExecutionException ex) {
+                            Logger.getLogger(Solver.class.getName()).log(Level.SEVERE, "Solve failed", ex);
+                            getGrid();
+                            btn_new.setEnabled(true);
+                            btn_edit.setEnabled(true);
+                            return;
                         }
-                    };
-                    sw.execute();
-                } catch (StackOverflowError t) {
-                    for (int i = 0; i < size; ++i) {
-                        for (int j = 0; j < size; ++j) {
-                            buttons[i][j].setText("");
-                            addAllValuesToSet();
-                            grid[i][j] = 0;
+                        if (result.isSolved()) {
+                            showValues(result.getSolution());
+                            btn_new.setEnabled(true);
+                            btn_reset.setEnabled(true);
+                            btn_verify.setEnabled(true);
+                            btn_edit.setEnabled(true);
+                            btn_solve.setEnabled(true);
+                        } else {
+                            if (result.getStatus() == SolveResult.Status.ABORTED)
+                                JOptionPane.showMessageDialog(mainframe, "Search limit reached.\nSOLVE ABORTED.", "ERROR", JOptionPane.ERROR_MESSAGE);
+                            else
+                                JOptionPane.showMessageDialog(mainframe, "Invalid Input.\nSOLVE ABORTED.", "ERROR", JOptionPane.ERROR_MESSAGE);
+                            //Revert to last locked state.
+                            getGrid();
+
+                            btn_new.setEnabled(true);
+                            btn_edit.setEnabled(true);
                         }
                     }
-                    System.out.println("\n\nSOLVE ABORTED.");
-                    JOptionPane.showMessageDialog(mainframe, "Invalid Input\nSOLVE ABORTED.", "ERROR", JOptionPane.ERROR_MESSAGE);
-                    //Revert to last locked state.
-                    getGrid();
-
-                    //Reset all cell sets.
-                    addAllValuesToSet();
-
-                    btn_edit.setEnabled(true);
-                }
+                };
+                sw.execute();
             } else {
-                JOptionPane.showMessageDialog(mainframe, "Please enter at least 16 values.", "Invalid Input", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(mainframe, "Please enter at least " + Generator.minClues(size) + " values.", "Invalid Input", JOptionPane.ERROR_MESSAGE);
             }
 
         });
@@ -382,9 +422,6 @@ class Solver {
             //Revert to last locked state.
             getGrid();
 
-            //Reset all cell sets.
-            addAllValuesToSet();
-
             btn_verify.setEnabled(false);
             btn_reset.setEnabled(false);
         });
@@ -393,8 +430,8 @@ class Solver {
             //Close current frame.
             mainframe.dispose();
 
-            //Start again.
-            new Solver();
+            //Start again, logging and animating as before.
+            new Solver(size, logLevel, fps);
         });
 
         btn_verify.addActionListener(e -> {
@@ -415,21 +452,6 @@ class Solver {
         btn.setFont(new Font("DialogInput", Font.PLAIN, 20));
     }
 
-    /**
-     * Updates all cellSets to contain all possible values.
-     */
-    private void addAllValuesToSet() {
-        for (int i = 0; i < size; ++i) {
-            for (int j = 0; j < size; ++j) {
-                int k = 1;
-                while (k <= size) {
-                    cellSets.get(i).get(j).add(k++);
-                }
-            }
-        }
-        resetFlags();
-    }
-
     /**
      * Updates the text of the sudoku grid buttons on the basis of the values stored the the grid[][] array.
      */
@@ -462,7 +484,7 @@ class Solver {
             }
             JButton[] temp = new JButton[1];
             temp[0] = button;
-            new Choice(temp, row, col, buttons, mainframe);
+            new Choice(temp, row, col, buttons, mainframe, gridSize);
             if (countGridValues() == size * size)
                 btn_verify.setEnabled(true);
         });
@@ -497,125 +519,36 @@ class Solver {
     }
 
     /**
-     * Updates the sets on the basis of the input provided to the sudoku cells on the GUI.
-     */
-    private void updateFromGrid() {
-        for (int i = 0; i < size; ++i) {
-            for (int j = 0; j < size; ++j) {
-                if (grid[i][j] != 0) {
-                    cellSets.get(i).get(j).clear();
-                    cellSets.get(i).get(j).add(grid[i][j]);
-                }
-            }
-        }
-    }
-
-    /**
-     * Uses the cells which are already confirmed to update sets of the cells in its row, column and grid.
-     */
-    private void updateFromConfirmed() {
-        for (int i = 0; i < size; ++i) {
-            for (int j = 0; j < size; ++j) {
-                if (cellSets.get(i).get(j).size() == 1 && !flag[i][j]) {
-                    removeInstances(cellSets.get(i).get(j), i, j);
-                    flag[i][j] = true;
-                }
-            }
-        }
-    }
-
-    /**
-     * Calculates the row position of a grid given the row index of a cell.
-     *
-     * @param row the row index of the cell
-     * @return the row index of the grid
-     */
-    private int calculateGridRow(int row) {
-        return row / gridSize;
-    }
-
-    /**
-     * Calculates the column position of a grid given the column index of a cell.
-     *
-     * @param col the column index of the cell
-     * @return the column index of the grid
-     */
-    private int calculateGridCol(int col) {
-        return col / gridSize;
-    }
-
-    /**
-     * Removes instances of a number from its row, column and grid.
-     *
-     * @param cellSet the set of the cell in question
-     * @param row     the row index of the cell
-     * @param col     the column index of the cell
-     */
-    private void removeInstances(HashSet<Integer> cellSet, int row, int col) {
-        int gr = calculateGridRow(row);
-        int gc = calculateGridCol(col);
-
-        //Remove element from sets of that row
-        for (int j = 0; j < size; ++j) {
-            if (j != col) {
-                cellSets.get(row).get(j).removeAll(cellSet);
-            }
-        }
-
-        //Remove element from sets of that column
-        for (int i = 0; i < size; ++i) {
-            if (i != row) {
-                cellSets.get(i).get(col).removeAll(cellSet);
-            }
-        }
-
-        //Remove element from sets of that grid
-        for (int i = gr * gridSize, cnt_r = 0; cnt_r < gridSize; ++i, ++cnt_r) {
-            for (int j = gc * gridSize, cnt_c = 0; cnt_c < gridSize; ++j, ++cnt_c) {
-                if (!(i == row && j == col)) {
-                    cellSets.get(i).get(j).removeAll(cellSet);
-                }
-            }
-        }
-    }
-
-    /**
-     * Updates the sudoku grid with cell values that are confirmed.
+     * Hands the confirmed values of the current step to the animation timer, and waits until it has taken them.
+     * <br>Runs on the solving thread; steps that confirm nothing new are skipped.
      */
     private void publish() {
-
-        for (int i = 0; i < size; ++i) {
-            for (int j = 0; j < size; ++j) {
-                if (cellSets.get(i).get(j).size() == 1) {
-                    String text = cellSets.get(i).get(j).toString();
-                    buttons[i][j].setText(text.substring(1, text.length() - 1));
-                }
-            }
-        }
+        int[] frame = new int[size * size];
+        engine.exportValues(frame);
+        if (Arrays.equals(frame, lastFrame))
+            return;
+        lastFrame = frame;
         try {
-            //Change the number here to change the solve speed.
-            Thread.sleep(200);
+            frames.put(frame);
         } catch (InterruptedException e) {
-            e.printStackTrace();
+            //Finish the solve without the animation.
+            Thread.currentThread().interrupt();
         }
-        printSets();
     }
 
     /**
-     * Counts the number of cells that are confirmed.
+     * Updates the sudoku grid with the values that are confirmed; runs on the event thread.
      *
-     * @return the count
+     * @param values the grid in row-major order; 0 marks a cell that is left as it is
      */
-    private int countConfirmed() {
-        int cnt = 0;
+    private void showValues(int[] values) {
         for (int i = 0; i < size; ++i) {
             for (int j = 0; j < size; ++j) {
-                if (cellSets.get(i).get(j).size() == 1) {
-                    cnt++;
-                }
+                int value = values[i * size + j];
+                if (value != 0)
+                    buttons[i][j].setText(Integer.toString(value));
             }
         }
-        return cnt;
     }
 
     /**
@@ -635,230 +568,9 @@ class Solver {
     }
 
     /**
-     * Counts the number of confirmed cells that have already been used to update other cells.
+     * Checks if number of entries is at least Generator.minClues(size): 16, or 4 on a 4x4 grid.
      *
-     * @return the count
-     */
-    private int countFlags() {
-        int cnt = 0;
-        for (int i = 0; i < size; ++i) {
-            for (int j = 0; j < size; ++j) {
-                if (flag[i][j])
-                    cnt++;
-            }
-        }
-        return cnt;
-    }
-
-    /**
-     * Traverses each row/column/grid to find if there exists a cell that has a candidate not possible anywhere else in that row/column/grid.
-     */
-    private void onlyChoice() {
-
-        //Rows and Columns
-        for (int i = 0; i < size; ++i) {
-            int[] cnt_r = new int[size];
-            int[] cnt_c = new int[size];
-            valueCounter(i, cnt_r, cnt_c);
-            for (int x = 0; x < size; ++x) {
-                if (cnt_r[x] == 1 || cnt_c[x] == 1) {
-                    for (int j = 0; j < size; ++j) {
-                        onlyChoicePicker(j, cnt_r, x, i);
-                        onlyChoicePicker(i, cnt_c, x, j);
-                    }
-                }
-            }
-        }
-
-        //Grid
-        for (int i1 = 0; i1 < size / gridSize; ++i1) {
-            for (int j1 = 0; j1 < size / gridSize; ++j1) {
-                int[] cnt = new int[size];
-                gridValueCounter(cnt, i1, j1);
-                for (int x = 0; x < size; ++x) {
-                    if (cnt[x] == 1) {
-                        for (int i = i1 * gridSize, cnt_i = 0; cnt_i < gridSize; ++i, ++cnt_i) {
-                            for (int j = j1 * gridSize, cnt_j = 0; cnt_j < gridSize; ++j, ++cnt_j) {
-                                onlyChoicePicker(j, cnt, x, i);
-                            }
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Fixes a value of a cell to the candidate that only that cell has in its row/column/grid.
-     *
-     * @param i     the starting row index
-     * @param cnt_c the array of counters corresponding to all candidates
-     * @param x     the index in the counter array which has been found
-     * @param j     the starting column index
-     */
-    private void onlyChoicePicker(int i, int[] cnt_c, int x, int j) {
-        if (cnt_c[x] == 1)
-            if (cellSets.get(j).get(i).contains(x + 1)) {
-                buttons[j][i].setText(Integer.toString(x + 1));
-                cellSets.get(j).get(i).clear();
-                cellSets.get(j).get(i).add(x + 1);
-            }
-    }
-
-    /**
-     * Function to solve the Sudoku grid; uses backtracking iff regular constraint propagation techniques are inadequate to find the solution.
-     *
-     * @return false if sudoku enters an invalid state; true if solved.
-     */
-    private boolean solveWithBacktrack() {
-        if (checkIfFalse())
-            return false;
-
-        if (countConfirmed() < (size * size))
-            solve();
-        else
-            return true;
-        if (countConfirmed() < (size * size)) {
-
-            //Create restore point
-            ArrayList<ArrayList<HashSet<Integer>>> cellSetsSaved = new ArrayList<>();
-            initialiseSet(cellSetsSaved);
-            boolean[][] flagSaved = new boolean[size][size];
-            for (int i = 0; i < size; ++i) {
-                for (int j = 0; j < size; ++j) {
-                    cellSetsSaved.get(i).get(j).addAll(cellSets.get(i).get(j));
-                    flagSaved[i][j] = flag[i][j];
-                }
-            }
-
-            if (!(makeAGuess(0)))
-                return false;
-            if (!(solveWithBacktrack())) {
-                restoreValues(cellSetsSaved, flagSaved);
-                if (!(makeAGuess(1)))
-                    return false;
-
-                if (!(solveWithBacktrack())) {
-                    backtrackCnt++;
-                    System.out.println(ConsoleColors.RED_BOLD + "\n\tBACKTRACK!" + ConsoleColors.RESET);
-                    restoreValues(cellSetsSaved, flagSaved);
-                    return false;
-                }
-            }
-        } else
-            return true;
-        return true;
-    }
-
-    private void restoreValues(ArrayList<ArrayList<HashSet<Integer>>> cellSetsSaved, boolean[][] flagSaved) {
-        for (int i = 0; i < size; ++i) {
-            for (int j = 0; j < size; ++j) {
-                cellSets.get(i).get(j).clear();
-                cellSets.get(i).get(j).addAll(cellSetsSaved.get(i).get(j));
-                flag[i][j] = flagSaved[i][j];
-            }
-        }
-    }
-
-    /**
-     * Function that makes a guess in a cell that has only two possible values.
-     *
-     * @param type signifies whether a guess has already been made or not
-     * @return false if the sudoku runs into an invalid state; true if not.
-     */
-    private boolean makeAGuess(int type) {
-
-        boolean flagDup = false;
-        int l = 1, r = 2;
-        if (type == 1) {
-            l = 4;
-            r = 5;
-            int i = rowIds.pop();
-            int j = colIds.pop();
-            guessMaker(l, r, i, j);
-            System.out.println(ConsoleColors.YELLOW_BOLD + "\n\tCorrecting the incorrect guess at cell (" + (i + 1) + "," + (j + 1) + ")" + ConsoleColors.RESET);
-        } else {
-            for (int i = 0; i < size; ++i) {
-                for (int j = 0; j < size; ++j) {
-                    if (cellSets.get(i).get(j).size() == 2 && !flagDup) {
-                        guessMaker(l, r, i, j);
-                        flagDup = true;
-                        System.out.println(ConsoleColors.YELLOW_BOLD + "\n\tMaking a guess at cell (" + (i + 1) + "," + (j + 1) + ")" + ConsoleColors.RESET);
-                        rowIds.push(i);
-                        colIds.push(j);
-                        break;
-                    }
-                }
-            }
-            if (!flagDup)
-                return false;
-        }
-        printSets();
-        return true;
-    }
-
-    /**
-     * Helper function to makeAGuess; created to avoid code duplication.
-     *
-     * @param l start of the substring
-     * @param r end of the substring
-     * @param i row index of the cell
-     * @param j column index of the cell
-     */
-    private void guessMaker(int l, int r, int i, int j) {
-        String temp = cellSets.get(i).get(j).toString().substring(l, r);
-        cellSets.get(i).get(j).clear();
-        cellSets.get(i).get(j).add(Integer.parseInt(temp));
-    }
-
-    /**
-     * Initialises sets.
-     *
-     * @param cellSetsSaved the list of lists of sets to be initialised
-     */
-    private void initialiseSet(ArrayList<ArrayList<HashSet<Integer>>> cellSetsSaved) {
-        for (int i = 0; i < size; ++i) {
-            cellSetsSaved.add(i, new ArrayList<>());
-            for (int j = 0; j < size; ++j) {
-                cellSetsSaved.get(i).add(j, new HashSet<>());
-            }
-        }
-    }
-
-    /**
-     * Loops between eliminating choices from confirmed cells and filling in only choice as long as it can.
-     */
-    private void solve() {
-        while (countFlags() < countConfirmed()) {
-            updateFromConfirmed();
-            if (!(checkIfFalse()))
-                publish();
-            onlyChoice();
-            publish();
-            if (checkIfFalse())
-                return;
-        }
-    }
-
-    /**
-     * Checks if the current state of the sudoku is invalid.
-     *
-     * @return true if the state is invalid
-     */
-    private boolean checkIfFalse() {
-        for (int i = 0; i < size; ++i) {
-            for (int j = 0; j < size; ++j) {
-                if (cellSets.get(i).get(j).size() == 0)
-                    return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Checks if number of entries is at least 16.
-     *
-     * @return true if number of entries greater than or equal to 16
+     * @return true if number of entries greater than or equal to the minimum
      */
     private boolean checkIfEnough() {
         int cnt = 0;
@@ -868,123 +580,22 @@ class Solver {
                     cnt++;
             }
         }
-        return cnt >= 16;
+        return cnt >= Generator.minClues(size);
     }
 
     /**
-     * Counts the instances of all possible numbers in the range.
+     * Verifies the values currently shown on the grid.
      *
-     * @param i     the row/column index
-     * @param cnt_r the counter array for a row
-     * @param cnt_c the counter array for a column
-     */
-    private void valueCounter(int i, int[] cnt_r, int[] cnt_c) {
-        for (int j = 0; j < size; ++j) {
-            for (int k = 1; k <= size; ++k) {
-                if (cellSets.get(i).get(j).contains(k)) {
-                    cnt_r[k - 1]++;
-                }
-                if (cellSets.get(j).get(i).contains(k)) {
-                    cnt_c[k - 1]++;
-                }
-            }
-        }
-    }
-
-    /**
-     * Counts the instances of all possible numbers in the grid.
-     *
-     * @param cnt the counter array
-     * @param i1  starting row location of the grid
-     * @param j1  starting column location of the grid
-     */
-    private void gridValueCounter(int[] cnt, int i1, int j1) {
-        for (int i = i1 * gridSize, cnt_i = 0; cnt_i < gridSize; ++i, ++cnt_i) {
-            for (int j = j1 * gridSize, cnt_j = 0; cnt_j < gridSize; ++j, ++cnt_j) {
-                for (int k = 1; k <= size; ++k) {
-                    if (cellSets.get(i).get(j).contains(k)) {
-                        cnt[k - 1]++;
-                    }
-                }
-            }
-        }
-    }
-
-    /**
-     * Resets all flags
-     */
-    private void resetFlags() {
-        for (int i = 0; i < size; ++i) {
-            for (int j = 0; j < size; ++j) {
-                flag[i][j] = false;
-            }
-        }
-    }
-
-    /**
-     * Print the contents of the sets on the console.
+     * @return true if the grid holds a correct solution.
      */
-    private void printSets() {
-        boolean flag = false;
-        for (int i = 0; i < size; ++i) {
-            for (int j = 0; j < size; ++j) {
-                if (!(cellSets.get(i).get(j).equals(cellSetsChange.get(i).get(j)))) {
-                    flag = true;
-                    break;
-                }
-            }
-        }
-        if (flag) {
-            for (int i = 0; i < size; ++i) {
-                for (int j = 0; j < size; ++j) {
-                    cellSetsChange.get(i).get(j).clear();
-                    cellSetsChange.get(i).get(j).addAll(cellSets.get(i).get(j));
-                }
-            }
-            System.out.println(ConsoleColors.BLUE_UNDERLINED + "\nCurrent Status:" + ConsoleColors.RESET);
-            for (int i = 0; i < size; ++i) {
-                for (int j = 0; j < size; ++j) {
-                    if (cellSets.get(i).get(j).size() == 0)
-                        System.out.println(ConsoleColors.RED_BOLD + (i + 1) + "," + (j + 1) + " -> " + cellSets.get(i).get(j) + ConsoleColors.RESET);
-                    else if (cellSets.get(i).get(j).size() == 1)
-                        System.out.println(ConsoleColors.GREEN + (i + 1) + "," + (j + 1) + " -> " + cellSets.get(i).get(j) + ConsoleColors.RESET);
-                    else
-                        System.out.println((i + 1) + "," + (j + 1) + " -> " + cellSets.get(i).get(j));
-                }
-            }
-        }
-    }
-
     private boolean verify() {
-        //Rows and Columns
-        boolean flag = true;
+        int[] cells = new int[size * size];
         for (int i = 0; i < size; ++i) {
-            int[] cnt_r = new int[size];
-            int[] cnt_c = new int[size];
-            valueCounter(i, cnt_r, cnt_c);
-            for (int x = 0; x < size; ++x) {
-                if (cnt_r[x] != 1 || cnt_c[x] != 1) {
-                    flag = false;
-                }
-            }
-        }
-
-        //Grid
-        for (int i1 = 0; i1 < size / gridSize; ++i1) {
-            for (int j1 = 0; j1 < size / gridSize; ++j1) {
-                int[] cnt = new int[size];
-                gridValueCounter(cnt, i1, j1);
-                for (int x = 0; x < size; ++x) {
-                    if (cnt[x] != 1) {
-                        flag = false;
-                    }
-                }
+            for (int j = 0; j < size; ++j) {
+                String text = buttons[i][j].getText();
+                cells[i * size + j] = text.equals("") ? 0 : Integer.parseInt(text);
             }
         }
-
-        if (countConfirmed() < (size * size))
-            flag = false;
-
-        return flag;
+        return PropagationEngine.verify(cells);
     }
 }
@@ -0,0 +1,225 @@
+package com.kabirkanha.sudoku;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class adds up the statistics of many solves: outcome counters, search and technique totals and a histogram of the
+ * solve times, for alerting on throughput and tail latency.
+ * <br>Any number of threads can record at once without blocking each other.
+ * <br>The instance returned by global() is published over JMX; batch mode records every puzzle into it.
+ */
+public final class SolverMetrics implements SolverMetricsMXBean {
+    /**
+     * The name the global instance is published under.
+     */
+    public static final String OBJECT_NAME = "com.kabirkanha.sudoku:type=SolverMetrics";
+
+    /**
+     * The instance shared by the whole JVM; created on first use.
+     */
+    private static SolverMetrics global;
+
+    /**
+     * The outcome counters.
+     */
+    private final LongAdder solved = new LongAdder(), invalid = new LongAdder(), aborted = new LongAdder(), malformed = new LongAdder();
+
+    /**
+     * The search totals.
+     */
+    private final LongAdder nodes = new LongAdder(), guesses = new LongAdder(), backtracks = new LongAdder(), passes = new LongAdder();
+
+    /**
+     * The uses of every technique seen so far, by name.
+     */
+    private final ConcurrentHashMap<String, LongAdder> techniqueUses = new ConcurrentHashMap<>();
+
+    /**
+     * The solve times.
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+    /**
+     * Returns the metrics shared by the whole JVM, publishing them over JMX the first time.
+     * <br>If the platform MBean server refuses the registration, the metrics still work but are not visible over JMX.
+     *
+     * @return the shared metrics.
+     */
+    public static synchronized SolverMetrics global() {
+        if (global == null) {
+            global = new SolverMetrics();
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(global, new ObjectName(OBJECT_NAME));
+            } catch (JMException | SecurityException e) {
+                //Do nothing; the metrics can still be read directly.
+            }
+        }
+        return global;
+    }
+
+    /**
+     * Records a finished solve.
+     *
+     * @param result the result of the solve; its statistics supply the counters and the solve time.
+     */
+    public void record(SolveResult result) {
+        SolveStats stats = result.getStats();
+        count(result.getStatus());
+        nodes.add(stats.getNodes());
+        guesses.add(stats.getGuesses());
+        backtracks.add(stats.getBacktracks());
+        passes.add(stats.getPropagationPasses());
+        for (int i = 0; i < stats.getTechniqueCount(); ++i) {
+            long uses = stats.getUses(i);
+            if (uses > 0)
+                techniqueUses.computeIfAbsent(stats.getTechnique(i), name -> new LongAdder()).add(uses);
+        }
+        latencies.record(stats.getWallNanos());
+    }
+
+    /**
+     * Records a solve for which only the outcome and the time are known, e.g. a grade.
+     *
+     * @param status the outcome.
+     * @param nanos  the solve time in nanoseconds.
+     */
+    public void record(SolveResult.Status status, long nanos) {
+        count(status);
+        latencies.record(nanos);
+    }
+
+    /**
+     * Records a puzzle that could not be parsed.
+     */
+    public void recordMalformed() {
+        malformed.increment();
+    }
+
+    /**
+     * Counts an outcome.
+     *
+     * @param status the outcome.
+     */
+    private void count(SolveResult.Status status) {
+        switch (status) {
+            case SOLVED:
+                solved.increment();
+                break;
+            case INVALID:
+                invalid.increment();
+                break;
+            default:
+                aborted.increment();
+        }
+    }
+
+    @Override
+    public long getSolves() {
+        return solved.sum() + invalid.sum() + aborted.sum();
+    }
+
+    @Override
+    public long getSolved() {
+        return solved.sum();
+    }
+
+    @Override
+    public long getInvalid() {
+        return invalid.sum();
+    }
+
+    @Override
+    public long getAborted() {
+        return aborted.sum();
+    }
+
+    @Override
+    public long getMalformed() {
+        return malformed.sum();
+    }
+
+    @Override
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    @Override
+    public long getGuesses() {
+        return guesses.sum();
+    }
+
+    @Override
+    public long getBacktracks() {
+        return backtracks.sum();
+    }
+
+    @Override
+    public long getPropagationPasses() {
+        return passes.sum();
+    }
+
+    @Override
+    public Map<String, Long> getTechniqueUses() {
+        Map<String, Long> uses = new TreeMap<>();
+        techniqueUses.forEach((name, count) -> uses.put(name, count.sum()));
+        return uses;
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latencies.mean() / 1000;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.percentile(50));
+    }
+
+    @Override
+    public long getP90Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.percentile(90));
+    }
+
+    @Override
+    public long getP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.percentile(99));
+    }
+
+    @Override
+    public long getP999Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.percentile(99.9));
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(latencies.max());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>Solves recorded while this runs may be partly kept.
+     */
+    @Override
+    public void reset() {
+        for (LongAdder adder : new LongAdder[]{solved, invalid, aborted, malformed, nodes, guesses, backtracks, passes}) {
+            adder.reset();
+        }
+        techniqueUses.clear();
+        latencies.reset();
+    }
+
+    /**
+     * @return a one-line summary of the solve counts and times.
+     */
+    public String summary() {
+        return String.format("Solves: %d (%d solved, %d invalid, %d aborted, %d malformed), mean %.1f us, p50 %d us, p99 %d us, p99.9 %d us, max %d us",
+                getSolves(), getSolved(), getInvalid(), getAborted(), getMalformed(), getMeanMicros(), getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+}
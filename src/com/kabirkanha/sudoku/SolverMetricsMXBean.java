@@ -0,0 +1,94 @@
+package com.kabirkanha.sudoku;
+
+import java.util.Map;
+
+/**
+ * The management interface of SolverMetrics, published over JMX as "com.kabirkanha.sudoku:type=SolverMetrics".
+ * <br>The counters and latencies cover every solve since the start or the last call to reset().
+ */
+public interface SolverMetricsMXBean {
+    /**
+     * @return the number of puzzles solved or attempted.
+     */
+    long getSolves();
+
+    /**
+     * @return the number of puzzles that were solved.
+     */
+    long getSolved();
+
+    /**
+     * @return the number of puzzles that turned out to have no solution.
+     */
+    long getInvalid();
+
+    /**
+     * @return the number of solves that hit a limit or were cancelled.
+     */
+    long getAborted();
+
+    /**
+     * @return the number of puzzle lines that could not be parsed.
+     */
+    long getMalformed();
+
+    /**
+     * @return the total number of search nodes visited.
+     */
+    long getNodes();
+
+    /**
+     * @return the total number of guesses made.
+     */
+    long getGuesses();
+
+    /**
+     * @return the total number of backtracks.
+     */
+    long getBacktracks();
+
+    /**
+     * @return the total number of propagation passes.
+     */
+    long getPropagationPasses();
+
+    /**
+     * @return how often each technique made progress, by name.
+     */
+    Map<String, Long> getTechniqueUses();
+
+    /**
+     * @return the mean solve time in microseconds.
+     */
+    double getMeanMicros();
+
+    /**
+     * @return the median solve time in microseconds.
+     */
+    long getP50Micros();
+
+    /**
+     * @return the 90th percentile of the solve time in microseconds.
+     */
+    long getP90Micros();
+
+    /**
+     * @return the 99th percentile of the solve time in microseconds.
+     */
+    long getP99Micros();
+
+    /**
+     * @return the 99.9th percentile of the solve time in microseconds.
+     */
+    long getP999Micros();
+
+    /**
+     * @return the longest solve time in microseconds.
+     */
+    long getMaxMicros();
+
+    /**
+     * Sets every counter and the latency histogram back to zero, e.g. to watch the percentiles of the next interval only.
+     */
+    void reset();
+}
@@ -0,0 +1,131 @@
+package com.kabirkanha.sudoku;
+
+/**
+ * This class holds the precomputed layout of a grid size: the cells of every unit and the peers of every cell.
+ * <br>A unit is a row, a column or a sub-grid; units 0 to size - 1 are the rows, then come the columns, then the sub-grids.
+ * The peers of a cell are the other cells that share a unit with it.
+ * <br>All tables are flat int arrays built once per grid size and shared by every engine; they are never modified.
+ */
+final class Topology {
+    /**
+     * One instance per grid size, built on first use.
+     */
+    private static final Topology[] CACHE = new Topology[PropagationEngine.MAX_SIZE + 1];
+
+    /**
+     * The size of the whole grid.
+     */
+    final int size;
+
+    /**
+     * The size of one sub-grid.
+     */
+    final int gridSize;
+
+    /**
+     * The number of cells in the grid.
+     */
+    final int cells;
+
+    /**
+     * The number of units in the grid.
+     */
+    final int unitCount;
+
+    /**
+     * The number of peers of every cell.
+     */
+    final int peerCount;
+
+    /**
+     * The cells of every unit; the cells of unit u are at [u * size, (u + 1) * size).
+     */
+    final int[] units;
+
+    /**
+     * The row, column and sub-grid unit of every cell; those of cell c are at [c * 3, c * 3 + 3).
+     */
+    final int[] cellUnits;
+
+    /**
+     * The peers of every cell; those of cell c are at [c * peerCount, (c + 1) * peerCount).
+     */
+    final int[] peers;
+
+    /**
+     * Constructor for the Topology class.
+     *
+     * @param size the size of the whole grid.
+     */
+    private Topology(int size) {
+        this.size = size;
+        this.gridSize = PropagationEngine.subGridSize(size);
+        this.cells = size * size;
+        this.unitCount = 3 * size;
+        this.peerCount = 2 * (size - 1) + (gridSize - 1) * (gridSize - 1);
+        units = new int[unitCount * size];
+        cellUnits = new int[cells * 3];
+        peers = new int[cells * peerCount];
+
+        for (int unit = 0; unit < size; ++unit) {
+            int gr = unit / gridSize;
+            int gc = unit % gridSize;
+            for (int k = 0; k < size; ++k) {
+                units[unit * size + k] = unit * size + k;
+                units[(size + unit) * size + k] = k * size + unit;
+                units[(2 * size + unit) * size + k] = (gr * gridSize + k / gridSize) * size + gc * gridSize + k % gridSize;
+            }
+        }
+
+        for (int cell = 0; cell < cells; ++cell) {
+            int row = cell / size;
+            int col = cell % size;
+            int grid = (row / gridSize) * gridSize + col / gridSize;
+            cellUnits[cell * 3] = row;
+            cellUnits[cell * 3 + 1] = size + col;
+            cellUnits[cell * 3 + 2] = 2 * size + grid;
+
+            //The row and column first, then the rest of the sub-grid.
+            int n = cell * peerCount;
+            for (int k = 0; k < size; ++k) {
+                if (k != col)
+                    peers[n++] = row * size + k;
+            }
+            for (int k = 0; k < size; ++k) {
+                if (k != row)
+                    peers[n++] = k * size + col;
+            }
+            for (int k = 0; k < size; ++k) {
+                int peer = units[(2 * size + grid) * size + k];
+                if (peer / size != row && peer % size != col)
+                    peers[n++] = peer;
+            }
+        }
+    }
+
+    /**
+     * @param unit the index of a unit.
+     * @param cell the index of a cell.
+     * @return true if the cell lies in the unit.
+     */
+    boolean contains(int unit, int cell) {
+        return cellUnits[cell * 3 + unit / size] == unit;
+    }
+
+    /**
+     * Returns the tables of a grid size, building them the first time they are asked for.
+     *
+     * @param size the size of the whole grid, e.g. 9, 16 or 25.
+     * @return the shared tables.
+     * @throws IllegalArgumentException if the size is not supported.
+     */
+    static synchronized Topology of(int size) {
+        PropagationEngine.subGridSize(size);
+        Topology topology = CACHE[size];
+        if (topology == null) {
+            topology = new Topology(size);
+            CACHE[size] = topology;
+        }
+        return topology;
+    }
+}
@@ -9,19 +9,23 @@
  * <br>It then checks for every row, column and sub-grid to see if there exists any candidate that is present at only one cell location within the row/column/sub-grid.
  * <br>If that is the case, the cell is filled in with that candidate.
  * <br>These two functions are looped together as long as they are able to cause any movement in the status.
+ * <br>When neither finds anything, pointing and box-line reduction are tried; naked/hidden pairs and triples, X-Wing and Swordfish are available as further stages, always cheapest first.
  * <br>
  * <br>Once constraint propagation comes to a standstill, we move to the <strong>Backtracking</strong> approach <u>if necessary</u>.
- * <br>Here, a cell with only two possible candidates is identified and one of them is assumed to be true.
+ * <br>Here, the cell with the fewest remaining candidates is identified and one of them is assumed to be true.
  * <br>With this assumption, we repeat all the steps till now (including constraint propagation first).
- * <br>If the assumption turns out to be incorrect, we backtrack and choose the other candidate and re-do the whole thing.
+ * <br>If the assumption turns out to be incorrect, we backtrack and choose the next candidate and re-do the whole thing.
  * <br>It is efficiently able to handle multi level backtracking and the algorithm is far more 'intelligent' than any pure backtracking approach.
- * <br>The solving speed can be varied using the argument in the <em>Thread.sleep()</em> method. It enable us to view the intermediate steps, especially for backtracking.
+ * <br>By default the solve runs at full speed and only the result is shown. Start with <code>--fps n</code> to watch it instead: the grid then shows n steps per second, which lets us view the intermediate steps, especially for backtracking.
+ * <br>The solving itself is done by a headless engine (<em>PropagationEngine</em>) that does not need a display, so it can also be used without the GUI.
+ * <br>The grid size is chosen at runtime: any perfect square from 4x4 up to 64x64, e.g. 16x16 or 25x25.
  * <br>
  * <br>Colour coded comprehensive logs are printed at every step of the way.
+ * <br>How much is logged can be chosen with <code>--log off|summary|step|full</code>: nothing, the outcome and statistics of every solve, also every guess and backtrack, or also every single and the candidates of every cell (the default).
  * <br>
  * <br><strong>Button functionality:</strong>
  * <ul>
- * <li>FILE INPUT - Opens the File chooser and allows the user to select a single CSV file for input.</li>
+ * <li>FILE INPUT - Opens the File chooser and allows the user to select a single CSV or text file for input; the first puzzle in it, in any format batch mode reads, is loaded.</li>
  * <li>EDIT - Enables the grid buttons; allows edits to the grid.</li>
  * <li>LOCK - Disables edits to the grid and saves a copy of the current state.</li>
  * <li>SOLVE - Solves the Sudoku using Constraint Propagation and Backtracking.</li>